@@ -0,0 +1,46 @@
+package befaster;
+
+import befaster.runner.ClientRunner;
+import org.openjdk.jmh.annotations.*;
+import tdl.client.ProcessingRules;
+import tdl.client.abstractions.UserImplementation;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static tdl.client.actions.ClientActions.publish;
+
+/**
+ * The path a request takes once the runner has it: the rules {@link ClientRunner#start} registers
+ * with {@link ProcessingRules}, metrics and all, for the solutions in {@link Start}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SolutionDispatchBenchmark {
+    private Map<String, UserImplementation> solutions;
+
+    @Setup
+    public void setUp() {
+        solutions = Start.registerSolutions(ClientRunner.forUsername("benchmark"))
+                .addSolutionRules(new ProcessingRules(), null, publish());
+    }
+
+    @Benchmark
+    public Object sum() {
+        return solutions.get("sum").process("1", "2");
+    }
+
+    @Benchmark
+    public Object hello() {
+        return solutions.get("hello").process("World");
+    }
+
+    @Benchmark
+    public Object checkout() {
+        return solutions.get("checkout").process("3A,2B C D 2E");
+    }
+}
@@ -0,0 +1,50 @@
+package befaster.solutions;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode plus price for the same basket as a string and in the binary {@link BasketCodec} form.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BasketCodecBenchmark {
+
+    @Param({"small", "medium", "adversarial"})
+    private String size;
+
+    private String skus;
+    private ByteBuffer heap;
+    private ByteBuffer direct;
+
+    @Setup
+    public void setUp() {
+        skus = CheckoutBenchmark.basketOf(size);
+        heap = BasketCodec.encode(Catalog.current(), skus);
+        direct = ByteBuffer.allocateDirect(heap.remaining());
+        direct.put(heap.duplicate()).flip();
+    }
+
+    @Benchmark
+    public Integer string() {
+        return Checkout.checkout(skus);
+    }
+
+    @Benchmark
+    public int binaryHeap() {
+        heap.rewind();
+        return Checkout.checkout(heap);
+    }
+
+    @Benchmark
+    public int binaryDirect() {
+        direct.rewind();
+        return Checkout.checkout(direct);
+    }
+}
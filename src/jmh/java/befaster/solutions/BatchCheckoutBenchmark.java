@@ -0,0 +1,51 @@
+package befaster.solutions;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch throughput in baskets per second: one operation is one basket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BatchCheckoutBenchmark {
+    private static final int BATCH_SIZE = 100_000;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    private CharSequence[] baskets;
+    private BatchCheckout batch;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        final SkuIndex skus = Catalog.defaults().getIndex();
+        baskets = new CharSequence[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            final StringBuilder basket = new StringBuilder();
+            for (int item = 1 + random.nextInt(20); item > 0; item--) {
+                basket.append(skus.skuAt(random.nextInt(skus.size())));
+            }
+            baskets[i] = basket.toString();
+        }
+        batch = BatchCheckout.withThreads(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        batch.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] checkoutAll() {
+        return batch.checkoutAll(baskets);
+    }
+}
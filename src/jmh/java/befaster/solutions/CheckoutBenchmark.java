@@ -0,0 +1,76 @@
+package befaster.solutions;
+
+import befaster.solutions.Checkout.Basket;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing, offer matching and full checkout for baskets of increasing size and awkwardness.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    @Param({"small", "medium", "huge", "adversarial"})
+    private String size;
+
+    private String skus;
+    private Basket basket;
+
+    @Setup
+    public void setUp() {
+        skus = basketOf(size);
+        basket = new Basket(Catalog.defaults().getIndex()).fill(skus);
+    }
+
+    static String basketOf(String size) {
+        switch (size) {
+            case "small":
+                return "ABC";
+            case "medium":
+                return "3A,2B C D 2E,3F 5H,2K 3N M,5P 3Q 3R Q,4U 3V STXYZ";
+            case "huge":
+                return "10000A";
+            case "adversarial":
+                final SkuIndex skus = Catalog.defaults().getIndex();
+                final StringBuilder basket = new StringBuilder();
+                for (int i = 0; i < 2000; i++) {
+                    basket.append(skus.skuAt(i % skus.size())).append(i % 2 == 0 ? ',' : ' ');
+                }
+                return basket.toString();
+            default:
+                throw new IllegalArgumentException(size);
+        }
+    }
+
+    @Benchmark
+    public Basket parse() {
+        return basket.fill(skus);
+    }
+
+    @Benchmark
+    public List<Checkout.Offer> findMatchingOffers() {
+        return Checkout.findMatchingOffers(basket.fill(skus), Catalog.defaults().getOfferIndex());
+    }
+
+    @Benchmark
+    public Integer checkout() {
+        return Checkout.checkout(skus);
+    }
+
+    @Benchmark
+    public Integer checkoutOptimal() {
+        return Checkout.checkout(skus, PricingMode.OPTIMAL);
+    }
+
+    @Benchmark
+    public Integer referenceCheckout() {
+        return Checkout.referenceCheckout(skus);
+    }
+}
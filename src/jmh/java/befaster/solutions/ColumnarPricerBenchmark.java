@@ -0,0 +1,59 @@
+package befaster.solutions;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk pricing of a count matrix, column-wise versus one basket at a time through the engine.
+ * One operation is one basket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ColumnarPricerBenchmark {
+    private static final int BASKETS = 100_000;
+
+    private int[][] columns;
+    private int[][] rows;
+    private ColumnarPricer columnar;
+    private PricingEngine engine;
+
+    @Setup
+    public void setUp() {
+        final Catalog catalog = Catalog.defaults();
+        final int skus = catalog.getIndex().size();
+        final Random random = new Random(42);
+        columns = new int[skus][BASKETS];
+        rows = new int[BASKETS][skus];
+        for (int basket = 0; basket < BASKETS; basket++) {
+            for (int item = 1 + random.nextInt(20); item > 0; item--) {
+                final int sku = random.nextInt(skus);
+                columns[sku][basket]++;
+                rows[basket][sku]++;
+            }
+        }
+        columnar = ColumnarPricer.of(catalog);
+        engine = catalog.getEngine();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BASKETS)
+    public long[] columnar() {
+        return columnar.price(columns, BASKETS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BASKETS)
+    public long[] scalar() {
+        final long[] totals = new long[BASKETS];
+        for (int basket = 0; basket < BASKETS; basket++) {
+            totals[basket] = engine.price(rows[basket]);
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,49 @@
+package befaster.solutions;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One basket priced by the array-driven engine versus the catalog's composed method handle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompiledPricerBenchmark {
+    private static final int BASKETS = 4096;
+
+    private int[][] baskets;
+    private PricingEngine engine;
+    private CompiledPricer compiled;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final Catalog catalog = Catalog.defaults();
+        final int skus = catalog.getIndex().size();
+        final Random random = new Random(42);
+        baskets = new int[BASKETS][skus];
+        for (int[] basket : baskets) {
+            for (int item = 1 + random.nextInt(20); item > 0; item--) {
+                basket[random.nextInt(skus)]++;
+            }
+        }
+        engine = catalog.getEngine();
+        compiled = catalog.getPricer();
+    }
+
+    @Benchmark
+    public int engine() {
+        return engine.price(baskets[next++ & (BASKETS - 1)]);
+    }
+
+    @Benchmark
+    public int compiled() {
+        return compiled.price(baskets[next++ & (BASKETS - 1)]);
+    }
+}
@@ -0,0 +1,230 @@
+package befaster;
+
+import befaster.runner.ClientRunner;
+import befaster.runner.LatencyHistogram;
+import befaster.runner.RoundStore;
+import befaster.solutions.Catalog;
+import befaster.solutions.Checkout;
+import befaster.solutions.SyntheticBaskets;
+import tdl.client.abstractions.UserImplementation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the solutions registered by {@link Start} in-process, without a tdl server.
+ *
+ *   ./gradlew loadHarness -Pargs="--threads=8 --requests=1000000 --rate=50000"
+ *   ./gradlew loadHarness -Pargs="--replay=challenges/store"
+ *   ./gradlew loadHarness -Pargs="--target=http://localhost:8080 --threads=16"
+ *
+ * Requests are either synthetic checkout baskets (--items, --zipf, --offer-hit-rate, --seed) or
+ * the request/response pairs recorded by the runner's {@link RoundStore}. With --rate the load is
+ * open-loop and latency is measured from each request's scheduled start, so stalls are not hidden;
+ * without it every thread sends requests back to back. Checkout responses are compared with
+ * {@link Checkout#referenceCheckout(String)}, other replayed responses with the recorded ones.
+ * With --target the requests go over HTTP to a running {@link Server} instead.
+ */
+public class LoadHarness {
+
+    static final class Request {
+        final String method;
+        final String[] params;
+        final String expected;
+
+        Request(String method, String[] params, String expected) {
+            this.method = method;
+            this.params = params;
+            this.expected = expected;
+        }
+    }
+
+    static final class Report {
+        final long requests;
+        final long errors;
+        final long mismatches;
+        final long elapsedNanos;
+        final LatencyHistogram.Snapshot latency;
+
+        Report(long requests, long errors, long mismatches, long elapsedNanos, LatencyHistogram.Snapshot latency) {
+            this.requests = requests;
+            this.errors = errors;
+            this.mismatches = mismatches;
+            this.elapsedNanos = elapsedNanos;
+            this.latency = latency;
+        }
+
+        void printTo(PrintStream out) {
+            out.printf("requests: %d, errors: %d, mismatches: %d%n", requests, errors, mismatches);
+            out.printf("throughput: %.0f req/s%n", requests / Math.max(1e-9, elapsedNanos / 1e9));
+            out.printf("latency (us): p50=%.1f p90=%.1f p99=%.1f p999=%.1f max=%.1f%n",
+                    latency.getValueAtPercentile(50) / 1e3, latency.getValueAtPercentile(90) / 1e3,
+                    latency.getValueAtPercentile(99) / 1e3, latency.getValueAtPercentile(99.9) / 1e3,
+                    latency.getValueAtPercentile(100) / 1e3);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        final Map<String, String> options = parseOptions(args);
+        final List<Request> requests;
+        if (options.containsKey("replay")) {
+            requests = replay(Paths.get(options.get("replay")));
+        } else {
+            requests = synthetic(new SyntheticBaskets(Catalog.current(),
+                    Long.parseLong(options.getOrDefault("seed", "42")),
+                    Integer.parseInt(options.getOrDefault("items", "10")),
+                    Double.parseDouble(options.getOrDefault("zipf", "1.0")),
+                    Double.parseDouble(options.getOrDefault("offer-hit-rate", "0.3"))),
+                    Integer.parseInt(options.getOrDefault("requests", "100000")));
+        }
+        System.out.println("Prepared " + requests.size() + " requests");
+
+        final Map<String, UserImplementation> solutions = options.containsKey("target")
+                ? remote(URI.create(options.get("target")), Start.registerSolutions(ClientRunner.forUsername("load")).getSolutions().keySet())
+                : Start.registerSolutions(ClientRunner.forUsername("load")).getSolutions();
+        run(solutions, requests,
+                Integer.parseInt(options.getOrDefault("threads", "4")),
+                Double.parseDouble(options.getOrDefault("rate", "0")))
+                .printTo(System.out);
+    }
+
+    static List<Request> synthetic(SyntheticBaskets baskets, int count) {
+        final List<Request> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String basket = baskets.next();
+            requests.add(new Request("checkout", new String[]{basket}, String.valueOf(Checkout.referenceCheckout(basket))));
+        }
+        return requests;
+    }
+
+    static List<Request> replay(Path storeDirectory) throws IOException {
+        final List<Request> requests = new ArrayList<>();
+        try (RoundStore store = RoundStore.open(storeDirectory, 16 * 1024 * 1024, Duration.ofSeconds(1))) {
+            store.forEachAudit(entry -> {
+                final String[] params = new String[entry.length - 2];
+                System.arraycopy(entry, 2, params, 0, params.length);
+                final String expected = entry[0].equals("checkout") && params.length == 1
+                        ? String.valueOf(Checkout.referenceCheckout(params[0]))
+                        : entry[1];
+                requests.add(new Request(entry[0], params, expected));
+            });
+        }
+        return requests;
+    }
+
+    /**
+     * Solutions that POST their parameters, one per line, to {@code base}/method on a
+     * {@link befaster.runner.PricingServer}. Connections are kept alive between calls.
+     */
+    static Map<String, UserImplementation> remote(URI base, Set<String> methods) {
+        final Map<String, UserImplementation> solutions = new HashMap<>();
+        for (String method : methods) {
+            solutions.put(method, params -> {
+                try {
+                    final HttpURLConnection connection = (HttpURLConnection) base.resolve("/" + method).toURL().openConnection();
+                    connection.setDoOutput(true);
+                    try (OutputStream out = connection.getOutputStream()) {
+                        out.write(String.join("\n", params).getBytes(StandardCharsets.UTF_8));
+                    }
+                    final int status = connection.getResponseCode();
+                    try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                        final String body = readFully(in);
+                        if (status != 200) throw new IllegalStateException(status + " " + body);
+                        return body;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return solutions;
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        for (int read; (read = in.read(buffer)) > 0; ) {
+            body.write(buffer, 0, read);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param rate requests per second across all threads, or 0 to run closed-loop
+     */
+    static Report run(Map<String, UserImplementation> solutions, List<Request> requests, int threads, double rate) {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong mismatches = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(threads);
+        final long intervalNanos = rate > 0 ? (long) (1e9 / rate) : 0;
+        final long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final int first = t;
+            final Thread worker = new Thread(() -> {
+                try {
+                    for (int i = first; i < requests.size(); i += threads) {
+                        final long scheduled = intervalNanos == 0 ? System.nanoTime() : start + i * intervalNanos;
+                        for (long wait; (wait = scheduled - System.nanoTime()) > 0; ) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        final Request request = requests.get(i);
+                        final UserImplementation solution = solutions.get(request.method);
+                        try {
+                            if (solution == null) throw new IllegalArgumentException("No solution for " + request.method);
+                            final Object response = solution.process(request.params);
+                            if (request.expected != null && !Objects.equals(request.expected, String.valueOf(response))) {
+                                mismatches.incrementAndGet();
+                            }
+                        } catch (RuntimeException e) {
+                            errors.incrementAndGet();
+                        }
+                        latency.record(System.nanoTime() - scheduled);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + t);
+            worker.start();
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new Report(requests.size(), errors.get(), mismatches.get(), System.nanoTime() - start, latency.snapshot());
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            final int equals = arg.indexOf('=');
+            if (equals < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,83 @@
+package befaster;
+
+import befaster.runner.ClientRunner;
+import befaster.runner.PricingServer;
+import befaster.runner.RunnerConfig;
+import befaster.solutions.Catalog;
+import befaster.solutions.PricingNode;
+import befaster.util.FileWatcher;
+import tdl.client.abstractions.UserImplementation;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves the solutions registered in {@link Start} over HTTP instead of pulling work from the tdl
+ * server. Host, port and pool sizes come from {@code tdl_server_*} in credentials.config.
+ *
+ *   ./gradlew server
+ *   curl -d '3A,2B' http://localhost:8080/checkout
+ *
+ * Setting {@code tdl_cluster_members} (host:port,host:port,...) and {@code tdl_cluster_port}
+ * makes this JVM one {@link PricingNode} of a tier sharing one basket price cache. Catalog file
+ * changes are then published to every member.
+ */
+public class Server {
+    private static final Path CATALOG_FILE = Paths.get("config", "catalog.csv");
+
+    public static void main(String[] args) throws IOException {
+        // Headers and body are written separately; with Nagle on, every keep-alive response
+        // waits out the client's delayed ACK (~40ms). Read once, by the first HttpServer created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        final RunnerConfig config = RunnerConfig.get();
+        final String host = config.getString("tdl_server_host", "localhost");
+        final Map<String, UserImplementation> solutions =
+                new HashMap<>(Start.registerSolutions(ClientRunner.forUsername("server")).getSolutions());
+
+        if (config.find("tdl_cluster_members").isPresent()) {
+            final PricingNode node = joinCluster(config, host);
+            solutions.put("checkout", p -> node.price(p[0]));
+        } else {
+            Catalog.watch(CATALOG_FILE);
+        }
+
+        final PricingServer server = PricingServer.start(
+                solutions,
+                new InetSocketAddress(host, config.getInt("tdl_server_port", 8080)),
+                config.getInt("tdl_server_io_threads", 2),
+                config.getInt("tdl_server_workers", Runtime.getRuntime().availableProcessors()),
+                config.getInt("tdl_server_max_in_flight", 1024));
+        System.out.println("Serving solutions on http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+    }
+
+    private static PricingNode joinCluster(RunnerConfig config, String host) throws IOException {
+        final List<InetSocketAddress> members = new ArrayList<>();
+        for (String member : config.getString("tdl_cluster_members", "").split(",")) {
+            final int colon = member.lastIndexOf(':');
+            members.add(new InetSocketAddress(member.substring(0, colon).trim(), Integer.parseInt(member.substring(colon + 1).trim())));
+        }
+        final PricingNode node = PricingNode.listen(
+                new InetSocketAddress(host, config.getInt("tdl_cluster_port", 9090)),
+                Files.exists(CATALOG_FILE) ? Catalog.load(CATALOG_FILE) : Catalog.current(),
+                config.getInt("tdl_cluster_cache_size", 100_000));
+        node.join(members);
+        FileWatcher.watch(CATALOG_FILE, () -> {
+            try {
+                node.publish(Catalog.load(CATALOG_FILE));
+            } catch (IOException e) {
+                System.err.println("Could not load " + CATALOG_FILE + ": " + e.getMessage());
+            }
+        });
+        System.out.println("Pricing node " + node.getAddress() + " joined " + members);
+        return node;
+    }
+}
@@ -3,11 +3,17 @@ package befaster;
 import befaster.runner.ClientRunner;
 import befaster.runner.ConfigNotFoundException;
 import befaster.runner.RunnerAction;
+import befaster.runner.RunnerConfig;
+import befaster.solutions.Catalog;
 import befaster.solutions.Checkout;
+import befaster.solutions.CheckoutTracer;
 import befaster.solutions.FizzBuzz;
 import befaster.solutions.Hello;
 import befaster.solutions.Sum;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
 import static befaster.runner.CredentialsConfigFile.readFromConfigFile;
 import static befaster.runner.TypeConversion.asInt;
 
@@ -50,15 +56,24 @@ public class Start {
      *   +------+-----------------------------------------+-----------------------------------------------+
      *
      **/
-    public static void main(String[] args) throws ConfigNotFoundException {
-        ClientRunner.forUsername(readFromConfigFile("tdl_username"))
+    public static void main(String[] args) throws ConfigNotFoundException, IOException {
+        if (RunnerConfig.get().getBoolean("tdl_config_reload", false)) {
+            RunnerConfig.watch();
+        }
+        CheckoutTracer.installFromSystemProperties();
+        Catalog.watch(Paths.get("config", "catalog.csv"));
+        registerSolutions(ClientRunner.forUsername(readFromConfigFile("tdl_username")))
                 .withServerHostname("run.befaster.io")
                 .withActionIfNoArgs(RunnerAction.testConnectivity)
+                .start(args);
+    }
+
+    public static ClientRunner registerSolutions(ClientRunner runner) {
+        return runner
                 .withSolutionFor("sum", p -> Sum.sum(asInt(p[0]), asInt(p[1])))
                 .withSolutionFor("hello", p -> Hello.hello(p[0]))
                 .withSolutionFor("fizz_buzz", p -> FizzBuzz.fizzBuzz(asInt(p[0])))
-                .withSolutionFor("checkout", p -> Checkout.checkout(p[0]))
-                .start(args);
+                .withSolutionFor("checkout", p -> Checkout.checkout(p[0]), Checkout.ERROR);
     }
 
 }
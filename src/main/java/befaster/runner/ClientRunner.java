@@ -3,13 +3,18 @@ package befaster.runner;
 import tdl.client.Client;
 import tdl.client.ProcessingRules;
 import tdl.client.abstractions.UserImplementation;
+import tdl.client.actions.ClientAction;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
-import static befaster.runner.CredentialsConfigFile.readFromConfigFile;
 import static tdl.client.actions.ClientActions.publish;
 
 public class ClientRunner {
@@ -17,6 +22,8 @@ public class ClientRunner {
     private RunnerAction defaultRunnerAction;
     private final String username;
     private final Map<String, UserImplementation> solutions;
+    private final Map<String, Object> invalidInputResults;
+    private final SolutionMetrics metrics = new SolutionMetrics();
 
     public static ClientRunner forUsername(@SuppressWarnings("SameParameterValue") String username) {
         return new ClientRunner(username);
@@ -25,6 +32,7 @@ public class ClientRunner {
     private ClientRunner(String username) {
         this.username = username;
         this.solutions = new HashMap<>();
+        this.invalidInputResults = new HashMap<>();
     }
 
     public ClientRunner withServerHostname(@SuppressWarnings("SameParameterValue") String hostname) {
@@ -42,6 +50,23 @@ public class ClientRunner {
         return this;
     }
 
+    /**
+     * Registers a solution that answers input it cannot parse with {@code invalidInputResult}
+     * instead of throwing, so such answers are counted as parse errors.
+     */
+    public ClientRunner withSolutionFor(String methodName, UserImplementation solution, Object invalidInputResult) {
+        invalidInputResults.put(methodName, invalidInputResult);
+        return withSolutionFor(methodName, solution);
+    }
+
+    public Map<String, UserImplementation> getSolutions() {
+        return Collections.unmodifiableMap(solutions);
+    }
+
+    public SolutionMetrics getMetrics() {
+        return metrics;
+    }
+
 
     public void start(String[] args) {
         if(!isRecordingSystemOk()) {
@@ -63,14 +88,40 @@ public class ClientRunner {
                 .call(p -> RoundManagement.displayAndSaveDescription(p[0], p[1]))
                 .then(publish());
 
-        solutions.forEach((methodName, userImplementation) -> processingRules
-                        .on(methodName)
-                        .call(userImplementation)
-                        .then(runnerAction.getClientAction()));
+        final RoundStore store = openRoundStore();
+        RoundManagement.useStore(store);
+        addSolutionRules(processingRules, store, runnerAction.getClientAction());
+        dumpMetricsIfConfigured();
 
-        client.goLiveWith(processingRules);
+        try {
+            client.goLiveWith(processingRules);
 
-        RecordingSystem.notifyEvent(RoundManagement.getLastFetchedRound(), runnerAction.getShortName());
+            RecordingSystem.notifyEvent(RoundManagement.getLastFetchedRound(), runnerAction.getShortName());
+        } finally {
+            if (store != null) {
+                store.close();
+            }
+        }
+    }
+
+    /**
+     * Adds a rule per solution: instrumented for {@link #getMetrics()}, logged to {@code store}
+     * unless it is null, and answered with {@code clientAction}.
+     *
+     * @return what each rule calls, by method name
+     */
+    public Map<String, UserImplementation> addSolutionRules(ProcessingRules processingRules, RoundStore store, ClientAction clientAction) {
+        final Map<String, UserImplementation> dispatched = new HashMap<>();
+        solutions.forEach((methodName, userImplementation) -> {
+            final UserImplementation rule = audited(store, methodName,
+                    metrics.instrument(methodName, userImplementation, invalidInputResults.get(methodName)));
+            processingRules
+                    .on(methodName)
+                    .call(rule)
+                    .then(clientAction);
+            dispatched.put(methodName, rule);
+        });
+        return dispatched;
     }
 
     private static Optional<RunnerAction> extractActionFrom(String[] args) {
@@ -81,8 +132,65 @@ public class ClientRunner {
     }
 
 
+    /**
+     * Rounds and request/response pairs are logged under {@code tdl_store_dir}. The runner carries
+     * on without the log if it cannot be opened.
+     */
+    private static RoundStore openRoundStore() {
+        RunnerConfig config = RunnerConfig.get();
+        Path directory = Paths.get(config.getString("tdl_store_dir", "challenges/store"));
+        try {
+            return RoundStore.open(directory,
+                    config.getInt("tdl_store_segment_bytes", 16 * 1024 * 1024),
+                    config.getDuration("tdl_store_flush_interval", Duration.ofSeconds(1)));
+        } catch (IOException e) {
+            System.err.println("Could not open round store in " + directory + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static UserImplementation audited(RoundStore store, String methodName, UserImplementation solution) {
+        if (store == null) {
+            return solution;
+        }
+        return params -> {
+            final Object response;
+            try {
+                response = solution.process(params);
+            } catch (RuntimeException e) {
+                audit(store, methodName, params, "!" + e.getClass().getSimpleName() + ": " + e.getMessage());
+                throw e;
+            }
+            audit(store, methodName, params, String.valueOf(response));
+            return response;
+        };
+    }
+
+    /**
+     * A request that cannot be logged is reported, but never fails the response.
+     */
+    private static void audit(RoundStore store, String methodName, String[] params, String response) {
+        try {
+            store.appendAudit(methodName, params, response);
+        } catch (RuntimeException e) {
+            System.err.println("Could not log " + methodName + " request: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Solution metrics are written to {@code tdl_metrics_file}, when set, every {@code tdl_metrics_interval}.
+     */
+    private void dumpMetricsIfConfigured() {
+        RunnerConfig config = RunnerConfig.get();
+        config.find("tdl_metrics_file").ifPresent(file -> {
+            Duration interval = config.getDuration("tdl_metrics_interval", Duration.ofSeconds(10));
+            metrics.dumpPeriodically(Paths.get(file), interval);
+            System.out.println("Solution metrics are written to " + file);
+        });
+    }
+
     private boolean isRecordingSystemOk() {
-        boolean requireRecording = Boolean.parseBoolean(readFromConfigFile("tdl_require_rec", "true"));
+        boolean requireRecording = RunnerConfig.get().getBoolean("tdl_require_rec", true);
 
         //noinspection SimplifiableIfStatement
         if (requireRecording) {
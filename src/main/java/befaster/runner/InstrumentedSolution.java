@@ -0,0 +1,110 @@
+package befaster.runner;
+
+import tdl.client.abstractions.UserImplementation;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps a registered solution and records its latency, call and error counts and allocated bytes.
+ * All counters are striped or atomic, so concurrent callers never contend on a lock.
+ *
+ * A parse error is input the solution rejected: an {@link IllegalArgumentException} (which
+ * includes {@link NumberFormatException}), or the result the solution answers invalid input
+ * with, such as {@code Checkout.ERROR}.
+ */
+public final class InstrumentedSolution implements UserImplementation {
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private final String methodName;
+    private final UserImplementation delegate;
+    private final Object invalidInputResult;
+    private final LatencyHistogram latencyNanos = new LatencyHistogram();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder parseErrors = new LongAdder();
+    private final LongAdder notImplemented = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    /**
+     * @param invalidInputResult what the solution returns for input it cannot parse, or null
+     */
+    InstrumentedSolution(String methodName, UserImplementation delegate, Object invalidInputResult) {
+        this.methodName = methodName;
+        this.delegate = delegate;
+        this.invalidInputResult = invalidInputResult;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        try {
+            final Object bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                    return threads;
+                }
+            }
+        } catch (LinkageError e) {
+            // not a HotSpot-compatible JVM, allocation bytes stay at zero
+        }
+        return null;
+    }
+
+    @Override
+    public Object process(String... params) {
+        final long threadId = Thread.currentThread().getId();
+        final long allocatedBefore = THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(threadId);
+        final long start = System.nanoTime();
+        try {
+            final Object result = delegate.process(params);
+            if (invalidInputResult != null && invalidInputResult.equals(result)) {
+                parseErrors.increment();
+            }
+            return result;
+        } catch (SolutionNotImplementedException e) {
+            notImplemented.increment();
+            throw e;
+        } catch (IllegalArgumentException e) {
+            errors.increment();
+            parseErrors.increment();
+            throw e;
+        } catch (RuntimeException e) {
+            errors.increment();
+            throw e;
+        } finally {
+            latencyNanos.record(System.nanoTime() - start);
+            calls.increment();
+            if (THREADS != null) {
+                allocatedBytes.add(THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore);
+            }
+        }
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public LatencyHistogram.Snapshot getLatencyNanos() {
+        return latencyNanos.snapshot();
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getParseErrors() {
+        return parseErrors.sum();
+    }
+
+    public long getNotImplemented() {
+        return notImplemented.sum();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+}
@@ -0,0 +1,202 @@
+package befaster.runner;
+
+import befaster.util.WorkerPools;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import tdl.client.abstractions.UserImplementation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves registered solutions over HTTP/1.1 so they can sit behind a load balancer.
+ *
+ * <pre>
+ * POST /checkout          body: one parameter per line      response: the result
+ * POST /batch             body: method\tparam\tparam per line response: one result per line, in order
+ * </pre>
+ *
+ * Connections are kept alive and requests pipelined on a connection are answered in order.
+ * A small pool of I/O threads reads requests and hands them to a worker pool. Responses are
+ * written from the worker once the solution returns. Past {@code maxInFlight} outstanding
+ * calls, requests are refused with 503 rather than queued. Every line of a batch counts as one
+ * call, and a batch that could never fit is refused with 413.
+ *
+ * Keep-alive responses stall on the client's delayed ACK unless the JVM is started with
+ * {@code sun.net.httpserver.nodelay=true}, as {@code befaster.Server} does.
+ */
+public final class PricingServer implements AutoCloseable {
+    private static final String BATCH_ERROR = "!";
+
+    private final HttpServer server;
+    private final ExecutorService ioThreads;
+    private final ExecutorService workers;
+    private final Map<String, UserImplementation> solutions;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    private PricingServer(Map<String, UserImplementation> solutions, InetSocketAddress address,
+                          int ioThreads, int workerThreads, int maxInFlight) throws IOException {
+        this.solutions = new HashMap<>(solutions);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.workers = WorkerPools.newWorkerPool(workerThreads);
+        final AtomicInteger created = new AtomicInteger();
+        this.ioThreads = Executors.newFixedThreadPool(ioThreads, runnable -> {
+            final Thread thread = new Thread(runnable, "pricing-io-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(this.ioThreads);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public static PricingServer start(Map<String, UserImplementation> solutions, InetSocketAddress address,
+                                      int ioThreads, int workerThreads, int maxInFlight) throws IOException {
+        return new PricingServer(solutions, address, ioThreads, workerThreads, maxInFlight);
+    }
+
+    int inFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "Use POST");
+            return;
+        }
+        final String method = exchange.getRequestURI().getPath().substring(1);
+        final String body = readBody(exchange);
+        if (method.equals("batch")) {
+            handleBatch(exchange, body);
+            return;
+        }
+        final UserImplementation solution = solutions.get(method);
+        if (solution == null) {
+            respond(exchange, 404, "No solution for " + method);
+            return;
+        }
+        if (!inFlight.tryAcquire()) {
+            respond(exchange, 503, "Too many requests in flight");
+            return;
+        }
+        final String[] params = body.split("\n", -1);
+        CompletableFuture.supplyAsync(() -> solution.process(params), workers)
+                .whenComplete((result, error) -> {
+                    inFlight.release();
+                    if (error == null) {
+                        respondQuietly(exchange, 200, String.valueOf(result));
+                    } else if (error.getCause() instanceof SolutionNotImplementedException) {
+                        respondQuietly(exchange, 501, "Not implemented");
+                    } else {
+                        respondQuietly(exchange, 400, describe(error.getCause()));
+                    }
+                });
+    }
+
+    /**
+     * Every line is one call, all running concurrently; failures come back as "!reason".
+     */
+    private void handleBatch(HttpExchange exchange, String body) throws IOException {
+        final String[] lines = body.isEmpty() ? new String[0] : body.split("\n");
+        final int permits = lines.length;
+        if (permits > maxInFlight) {
+            respond(exchange, 413, "Batch of " + permits + " calls is over the limit of " + maxInFlight);
+            return;
+        }
+        if (!inFlight.tryAcquire(permits)) {
+            respond(exchange, 503, "Too many requests in flight");
+            return;
+        }
+        final List<CompletableFuture<String>> results = new ArrayList<>(lines.length);
+        for (String line : lines) {
+            final String[] fields = line.split("\t", -1);
+            final UserImplementation solution = solutions.get(fields[0]);
+            final String[] params = new String[fields.length - 1];
+            System.arraycopy(fields, 1, params, 0, params.length);
+            results.add(CompletableFuture.supplyAsync(() -> {
+                if (solution == null) return BATCH_ERROR + "No solution for " + fields[0];
+                try {
+                    return String.valueOf(solution.process(params));
+                } catch (RuntimeException e) {
+                    return BATCH_ERROR + describe(e);
+                }
+            }, workers));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+            inFlight.release(permits);
+            final StringBuilder response = new StringBuilder();
+            for (CompletableFuture<String> result : results) {
+                response.append(result.join()).append('\n');
+            }
+            respondQuietly(exchange, 200, response.toString());
+        });
+    }
+
+    private static String describe(Throwable error) {
+        return error.getClass().getSimpleName() + (error.getMessage() == null ? "" : ": " + error.getMessage());
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            final byte[] buffer = new byte[4096];
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void respondQuietly(HttpExchange exchange, int status, String body) {
+        try {
+            respond(exchange, status, body);
+        } catch (IOException e) {
+            System.err.println("Could not answer " + exchange.getRequestURI() + ": " + e.getMessage());
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Stops accepting requests and waits up to ten seconds for calls already running.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        ioThreads.shutdown();
+        workers.shutdown();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,39 +4,142 @@ import com.mashape.unirest.http.HttpResponse;
 import com.mashape.unirest.http.Unirest;
 import com.mashape.unirest.http.exceptions.UnirestException;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Talks to the local recording system without ever stalling the runner.
+ *
+ * Status checks are cached for a short TTL. Events are queued and sent from a daemon thread,
+ * which drains whatever has accumulated on each wake-up and retries each event a bounded number
+ * of times. Pending events are flushed, within a deadline, when the JVM shuts down.
+ */
 class RecordingSystem {
-    private static final String RECORDING_SYSTEM_ENDPOINT = "http://localhost:41375";
+    private static final String STOP = "";
+    private static final RecordingSystem DEFAULT = fromConfig();
+
+    private final String endpoint;
+    private final long statusTtlNanos;
+    private final int maxAttempts;
+    private final BlockingQueue<String> events = new ArrayBlockingQueue<>(1024);
+    private final Thread sender;
+
+    private volatile boolean lastStatus;
+    private volatile long statusExpiresAt = System.nanoTime();
+
+    RecordingSystem(String endpoint, Duration statusTtl, int maxAttempts) {
+        this.endpoint = endpoint;
+        this.statusTtlNanos = statusTtl.toNanos();
+        this.maxAttempts = maxAttempts;
+        this.sender = new Thread(this::sendEvents, "recording-notifier");
+        this.sender.setDaemon(true);
+        this.sender.start();
+    }
+
+    private static RecordingSystem fromConfig() {
+        final RunnerConfig config = RunnerConfig.get();
+        Unirest.setTimeouts(
+                config.getDuration("tdl_recording_connect_timeout", Duration.ofSeconds(1)).toMillis(),
+                config.getDuration("tdl_recording_read_timeout", Duration.ofSeconds(2)).toMillis());
+        final RecordingSystem recordingSystem = new RecordingSystem(
+                config.getString("tdl_recording_endpoint", "http://localhost:41375"),
+                config.getDuration("tdl_recording_status_ttl", Duration.ofSeconds(5)),
+                config.getInt("tdl_recording_attempts", 3));
+        final Duration drainTimeout = config.getDuration("tdl_recording_drain_timeout", Duration.ofSeconds(5));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> recordingSystem.close(drainTimeout), "recording-drain"));
+        return recordingSystem;
+    }
 
     static boolean isRunning() {
+        return DEFAULT.status();
+    }
+
+    static void notifyEvent(String lastFetchedRound, String shortName) {
+        DEFAULT.submit(lastFetchedRound, shortName);
+    }
+
+    boolean status() {
+        if (System.nanoTime() - statusExpiresAt < 0) {
+            return lastStatus;
+        }
+        boolean running = false;
         try {
-            HttpResponse<String> stringHttpResponse = Unirest.get(RECORDING_SYSTEM_ENDPOINT + "/status").asString();
-            if (stringHttpResponse.getStatus() == 200 && stringHttpResponse.getBody().startsWith("OK")) {
-                return true;
-            }
+            HttpResponse<String> stringHttpResponse = Unirest.get(endpoint + "/status").asString();
+            running = stringHttpResponse.getStatus() == 200 && stringHttpResponse.getBody().startsWith("OK");
         } catch (UnirestException e) {
             System.err.println("Could not reach recording system: " + e.getMessage());
         }
-
-        return false;
+        lastStatus = running;
+        statusExpiresAt = System.nanoTime() + statusTtlNanos;
+        return running;
     }
 
-    static void notifyEvent(String lastFetchedRound, String shortName) {
+    void submit(String lastFetchedRound, String shortName) {
         System.out.printf("Notify round \"%s\", event \"%s\"%n", lastFetchedRound, shortName);
+        if (!events.offer(lastFetchedRound + "/" + shortName)) {
+            System.err.println("Recording system is falling behind, dropped event: " + shortName);
+        }
+    }
+
+    /**
+     * Stops accepting work and waits up to {@code timeout} for queued events to be sent.
+     */
+    void close(Duration timeout) {
+        try {
+            if (events.offer(STOP, timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                sender.join(Math.max(1, timeout.toMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!events.isEmpty()) {
+            System.err.println("Recording system did not acknowledge " + events.size() + " event(s) before shutdown");
+        }
+    }
 
+    private void sendEvents() {
+        final List<String> batch = new ArrayList<>();
         try {
-            HttpResponse<String> stringHttpResponse = Unirest.post(RECORDING_SYSTEM_ENDPOINT + "/notify")
-                    .body(lastFetchedRound+"/"+shortName)
-                    .asString();
-            if (stringHttpResponse.getStatus() != 200) {
-                System.err.println("Recording system returned code: "+stringHttpResponse.getStatus());
-                return;
+            while (true) {
+                batch.add(events.take());
+                events.drainTo(batch);
+                for (String event : batch) {
+                    if (event == STOP) {
+                        return;
+                    }
+                    send(event);
+                }
+                batch.clear();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            if (!stringHttpResponse.getBody().startsWith("ACK")) {
-                System.err.println("Recording system returned body: "+stringHttpResponse.getStatus());
+    private void send(String event) throws InterruptedException {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                HttpResponse<String> stringHttpResponse = Unirest.post(endpoint + "/notify")
+                        .body(event)
+                        .asString();
+                if (stringHttpResponse.getStatus() != 200) {
+                    System.err.println("Recording system returned code: " + stringHttpResponse.getStatus());
+                } else {
+                    if (!stringHttpResponse.getBody().startsWith("ACK")) {
+                        System.err.println("Recording system returned body: " + stringHttpResponse.getBody());
+                    }
+                    return;
+                }
+            } catch (UnirestException e) {
+                System.err.println("Could not reach recording system: " + e.getMessage());
+            }
+            if (attempt < maxAttempts) {
+                Thread.sleep(100L << (attempt - 1));
             }
-        } catch (UnirestException e) {
-            System.err.println("Could not reach recording system: " + e.getMessage());
         }
     }
 }
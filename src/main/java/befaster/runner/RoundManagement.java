@@ -11,6 +11,15 @@ class RoundManagement {
     private static final Path CHALLENGES_FOLDER = Paths.get("challenges");
     private static final Path LAST_FETCHED_ROUND_PATH = CHALLENGES_FOLDER.resolve("XR.txt");
 
+    private static volatile RoundStore store;
+
+    /**
+     * Rounds are also appended to {@code roundStore}, which then answers {@link #getLastFetchedRound()}.
+     */
+    static void useStore(RoundStore roundStore) {
+        store = roundStore;
+    }
+
     static String displayAndSaveDescription(String label, String description) {
         System.out.println("Starting round: " + label);
         System.out.println(description);
@@ -25,6 +34,10 @@ class RoundManagement {
         System.out.println("Challenge description saved to file: " + descriptionPath + ".");
 
         //Save round label
+        RoundStore roundStore = store;
+        if (roundStore != null) {
+            roundStore.appendRound(label, description);
+        }
         try {
             Files.write(label.getBytes(), LAST_FETCHED_ROUND_PATH.toFile());
         } catch (IOException e) {
@@ -35,6 +48,10 @@ class RoundManagement {
     }
 
     static String getLastFetchedRound() {
+        RoundStore roundStore = store;
+        if (roundStore != null && roundStore.lastRound().isPresent()) {
+            return roundStore.lastRound().get();
+        }
         try {
             return Files.readFirstLine(LAST_FETCHED_ROUND_PATH.toFile(), Charset.defaultCharset());
         } catch (IOException e) {
@@ -0,0 +1,283 @@
+package befaster.runner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of round descriptions and of every request/response the runner handles.
+ *
+ * The log is a sequence of fixed-size segment files. Only the one being appended to is
+ * memory-mapped. Full segments are forced to disk and dropped, and are read back from the file
+ * when needed. A record is {@code [length][crc32][type][fields...]}, each field a length-prefixed
+ * UTF-8 string. Its length is written last, and a torn or corrupt tail is cut off when the store
+ * is reopened. Writes only touch the mapping. Dirty pages are forced to disk every
+ * {@code flushInterval}, when a segment fills up, and on close.
+ *
+ * Round labels are indexed in memory, so looking up a description or the last round does not scan
+ * the log.
+ */
+public final class RoundStore implements AutoCloseable {
+    private static final byte ROUND = 1;
+    private static final byte AUDIT = 2;
+    private static final int HEADER = 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final List<Path> segments = new ArrayList<>();
+    private final Map<String, Location> rounds = new HashMap<>();
+    private final ScheduledExecutorService flusher;
+    private MappedByteBuffer active;
+    private volatile String lastRound;
+
+    private RoundStore(Path directory, int segmentBytes, Duration flushInterval) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        segments.addAll(existingSegments());
+        for (int i = 0; i < segments.size(); i++) {
+            final int segment = i;
+            final boolean last = i == segments.size() - 1;
+            final ByteBuffer contents = last ? map(segments.get(i)) : read(segments.get(i));
+            final int end = scan(contents, (type, offset, fields) -> {
+                if (type == ROUND) {
+                    rounds.put(fields[0], new Location(segment, offset));
+                    lastRound = fields[0];
+                }
+            });
+            if (last) {
+                active = (MappedByteBuffer) contents;
+                truncateTail(active, end);
+                active.position(end);
+            }
+        }
+        if (active == null) {
+            roll();
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "round-store-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long intervalMillis = Math.max(1, flushInterval.toMillis());
+        flusher.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static RoundStore open(Path directory, int segmentBytes, Duration flushInterval) throws IOException {
+        return new RoundStore(directory, segmentBytes, flushInterval);
+    }
+
+    public void appendRound(String label, String description) {
+        synchronized (this) {
+            rounds.put(label, append(ROUND, label, description));
+        }
+        lastRound = label;
+    }
+
+    /**
+     * Null request parameters are logged as "null".
+     */
+    public void appendAudit(String method, String[] request, String response) {
+        final String[] fields = new String[request.length + 2];
+        fields[0] = method;
+        fields[1] = String.valueOf(response);
+        for (int i = 0; i < request.length; i++) {
+            fields[i + 2] = String.valueOf(request[i]);
+        }
+        synchronized (this) {
+            append(AUDIT, fields);
+        }
+    }
+
+    public Optional<String> lastRound() {
+        return Optional.ofNullable(lastRound);
+    }
+
+    public synchronized Optional<String> description(String label) {
+        final Location location = rounds.get(label);
+        if (location == null) return Optional.empty();
+        return Optional.of(readFields(segment(location.segment), location.offset)[1]);
+    }
+
+    /**
+     * Replays every audit record, oldest first, as {@code [method, response, request...]}.
+     */
+    public synchronized void forEachAudit(Consumer<String[]> entry) {
+        for (int i = 0; i < segments.size(); i++) {
+            scan(segment(i), (type, offset, fields) -> {
+                if (type == AUDIT) entry.accept(fields);
+            });
+        }
+    }
+
+    public void flush() {
+        final MappedByteBuffer toFlush;
+        synchronized (this) {
+            toFlush = active;
+        }
+        toFlush.force();
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    private Location append(byte type, String... fields) {
+        final byte[][] encoded = new byte[fields.length][];
+        int length = 1;
+        for (int i = 0; i < fields.length; i++) {
+            encoded[i] = fields[i].getBytes(StandardCharsets.UTF_8);
+            length += 4 + encoded[i].length;
+        }
+        if (HEADER + length > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + length + " bytes does not fit in a segment");
+        }
+        if (active.remaining() < HEADER + length) {
+            active.force();
+            try {
+                roll();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not start a new segment in " + directory, e);
+            }
+        }
+
+        final int offset = active.position();
+        active.position(offset + HEADER);
+        active.put(type);
+        for (byte[] field : encoded) {
+            active.putInt(field.length);
+            active.put(field);
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(slice(active, offset + HEADER, length));
+        active.putInt(offset + 4, (int) crc.getValue());
+        active.putInt(offset, length);
+        return new Location(segments.size() - 1, offset);
+    }
+
+    /**
+     * The previous segment, already forced, is no longer referenced once the new one is mapped, and
+     * its mapping is released when the buffer is collected.
+     */
+    private void roll() throws IOException {
+        final Path segment = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segments.size(), SEGMENT_SUFFIX));
+        active = map(segment);
+        segments.add(segment);
+    }
+
+    private ByteBuffer segment(int index) {
+        if (index == segments.size() - 1) return active;
+        try {
+            return read(segments.get(index));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + segments.get(index), e);
+        }
+    }
+
+    private static ByteBuffer read(Path segment) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(segment));
+    }
+
+    private MappedByteBuffer map(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final long size = Math.max(segmentBytes, channel.size());
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private List<Path> existingSegments() throws IOException {
+        final List<Path> found = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(found::add);
+        }
+        found.sort(null);
+        return found;
+    }
+
+    /**
+     * Visits every intact record and returns the offset just past the last one.
+     */
+    private static int scan(ByteBuffer segment, RecordVisitor visitor) {
+        int offset = 0;
+        while (segment.capacity() - offset >= HEADER) {
+            final int length = segment.getInt(offset);
+            if (length <= 0 || length > segment.capacity() - offset - HEADER) break;
+            final CRC32 crc = new CRC32();
+            crc.update(slice(segment, offset + HEADER, length));
+            if ((int) crc.getValue() != segment.getInt(offset + 4)) break;
+            visitor.visit(segment.get(offset + HEADER), offset, readFields(segment, offset));
+            offset += HEADER + length;
+        }
+        return offset;
+    }
+
+    private static String[] readFields(ByteBuffer segment, int offset) {
+        final ByteBuffer record = slice(segment, offset + HEADER + 1, segment.getInt(offset) - 1);
+        final List<String> fields = new ArrayList<>();
+        while (record.hasRemaining()) {
+            final byte[] field = new byte[record.getInt()];
+            record.get(field);
+            fields.add(new String(field, StandardCharsets.UTF_8));
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Zeroes whatever a torn write left after {@code end}, up to the first page's worth of zeroes,
+     * so new records are never followed by stale bytes.
+     */
+    private static void truncateTail(MappedByteBuffer segment, int end) {
+        int zeroes = 0;
+        for (int i = end; i < segment.capacity() && zeroes < 4096; i++) {
+            if (segment.get(i) == 0) {
+                zeroes++;
+            } else {
+                segment.put(i, (byte) 0);
+                zeroes = 0;
+            }
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        final ByteBuffer slice = buffer.duplicate();
+        slice.limit(offset + length);
+        slice.position(offset);
+        return slice.slice();
+    }
+
+    private interface RecordVisitor {
+        void visit(byte type, int offset, String[] fields);
+    }
+
+    private static final class Location {
+        final int segment;
+        final int offset;
+
+        Location(int segment, int offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+    }
+}
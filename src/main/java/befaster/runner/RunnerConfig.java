@@ -0,0 +1,135 @@
+package befaster.runner;
+
+import befaster.util.FileWatcher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * An in-memory snapshot of {@code config/credentials.config}, read once and shared.
+ *
+ * Environment variables (upper-cased, e.g. {@code TDL_USERNAME}) override the file, and system
+ * properties override both. Only keys in the file or starting with {@code tdl_} are read from the
+ * environment and system properties, so unrelated variables never shadow config keys. Overrides
+ * are resolved when the snapshot is built, so a lookup is a single map read.
+ * {@link #watch()} swaps in a fresh snapshot whenever the file changes.
+ */
+public final class RunnerConfig {
+    private static final Path CONFIG_FILE = Paths.get("config", "credentials.config");
+    private static final String KEY_PREFIX = "tdl_";
+
+    private static volatile RunnerConfig current;
+
+    private final Map<String, String> values;
+    private final String missingFileReason;
+
+    private RunnerConfig(Map<String, String> values, String missingFileReason) {
+        this.values = Collections.unmodifiableMap(values);
+        this.missingFileReason = missingFileReason;
+    }
+
+    public static RunnerConfig get() {
+        RunnerConfig config = current;
+        if (config == null) {
+            synchronized (RunnerConfig.class) {
+                config = current;
+                if (config == null) {
+                    config = current = load(CONFIG_FILE);
+                }
+            }
+        }
+        return config;
+    }
+
+    public static FileWatcher watch() throws IOException {
+        return FileWatcher.watch(CONFIG_FILE, () -> current = load(CONFIG_FILE));
+    }
+
+    public static RunnerConfig load(Path file) {
+        final Properties properties = new Properties();
+        String missingFileReason = null;
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            missingFileReason = e.getMessage();
+        }
+
+        final Set<String> keys = new HashSet<>(properties.stringPropertyNames());
+        System.getenv().keySet().stream()
+                .map(key -> key.toLowerCase(Locale.ROOT))
+                .filter(key -> key.startsWith(KEY_PREFIX))
+                .forEach(keys::add);
+        System.getProperties().stringPropertyNames().stream()
+                .filter(key -> key.startsWith(KEY_PREFIX))
+                .forEach(keys::add);
+
+        final Map<String, String> values = new HashMap<>();
+        for (String key : keys) {
+            String value = System.getProperty(key);
+            if (value == null) value = System.getenv(key.toUpperCase(Locale.ROOT));
+            if (value == null) value = properties.getProperty(key);
+            if (value != null) values.put(key, value);
+        }
+        return new RunnerConfig(values, missingFileReason);
+    }
+
+    public Optional<String> find(String key) {
+        return Optional.ofNullable(values.get(key));
+    }
+
+    public String getString(String key) throws ConfigNotFoundException {
+        final String value = values.get(key);
+        if (value != null) {
+            return value;
+        }
+        if (missingFileReason != null) {
+            throw new ConfigNotFoundException("The \"credentials.config\" has not been found. " +
+                    "Please download from challenge page. ( Reason: " + missingFileReason + " )");
+        }
+        throw new ConfigNotFoundException("The \"credentials.config\" file does not contain key " + key);
+    }
+
+    public String getString(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    public int getInt(String key, int defaultValue) {
+        final String value = values.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        final String value = values.get(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    /**
+     * Accepts ISO-8601 ("PT2S"), a number with a unit ("250ms", "2s", "5m", "1h"), or plain milliseconds.
+     */
+    public Duration getDuration(String key, Duration defaultValue) {
+        final String value = values.get(key);
+        return value == null ? defaultValue : parseDuration(value.trim());
+    }
+
+    static Duration parseDuration(String value) {
+        final String lower = value.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("pt")) return Duration.parse(value);
+        if (lower.endsWith("ms")) return Duration.ofMillis(Long.parseLong(lower.substring(0, lower.length() - 2)));
+        if (lower.endsWith("s")) return Duration.ofSeconds(Long.parseLong(lower.substring(0, lower.length() - 1)));
+        if (lower.endsWith("m")) return Duration.ofMinutes(Long.parseLong(lower.substring(0, lower.length() - 1)));
+        if (lower.endsWith("h")) return Duration.ofHours(Long.parseLong(lower.substring(0, lower.length() - 1)));
+        return Duration.ofMillis(Long.parseLong(lower));
+    }
+}
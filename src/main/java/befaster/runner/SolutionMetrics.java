@@ -0,0 +1,93 @@
+package befaster.runner;
+
+import tdl.client.abstractions.UserImplementation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The instrumented solutions of one runner, and a periodic text dump of their numbers.
+ */
+public final class SolutionMetrics {
+    private final Map<String, InstrumentedSolution> solutions = new ConcurrentSkipListMap<>();
+    private final long startedAt = System.nanoTime();
+
+    public InstrumentedSolution instrument(String methodName, UserImplementation solution) {
+        return instrument(methodName, solution, null);
+    }
+
+    /**
+     * @param invalidInputResult what {@code solution} returns for input it cannot parse, counted
+     *                           as a parse error; null if it always throws instead
+     */
+    public InstrumentedSolution instrument(String methodName, UserImplementation solution, Object invalidInputResult) {
+        final InstrumentedSolution instrumented = new InstrumentedSolution(methodName, solution, invalidInputResult);
+        solutions.put(methodName, instrumented);
+        return instrumented;
+    }
+
+    public Map<String, InstrumentedSolution> getSolutions() {
+        return solutions;
+    }
+
+    public void writeTo(Appendable out) throws IOException {
+        final double elapsedSeconds = Math.max(1e-9, (System.nanoTime() - startedAt) / 1e9);
+        out.append(String.format("%-12s %10s %8s %8s %8s %10s %10s %10s %10s %12s%n",
+                "method", "calls", "errors", "parseErr", "notImpl", "calls/s", "p50(us)", "p99(us)", "p999(us)", "bytes/call"));
+        for (InstrumentedSolution solution : solutions.values()) {
+            final LatencyHistogram.Snapshot latency = solution.getLatencyNanos();
+            final long calls = solution.getCalls();
+            out.append(String.format("%-12s %10d %8d %8d %8d %10.1f %10.1f %10.1f %10.1f %12d%n",
+                    solution.getMethodName(), calls, solution.getErrors(), solution.getParseErrors(), solution.getNotImplemented(),
+                    calls / elapsedSeconds,
+                    latency.getValueAtPercentile(50) / 1e3,
+                    latency.getValueAtPercentile(99) / 1e3,
+                    latency.getValueAtPercentile(99.9) / 1e3,
+                    calls == 0 ? 0 : solution.getAllocatedBytes() / calls));
+        }
+    }
+
+    /**
+     * Rewrites {@code file} every {@code interval} on a daemon thread. The file is replaced
+     * atomically, so readers never see a partial table.
+     */
+    public AutoCloseable dumpPeriodically(Path file, Duration interval) {
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "solution-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final Runnable dump = () -> {
+            try {
+                dumpTo(file);
+            } catch (IOException e) {
+                System.err.println("Could not write solution metrics to " + file + ": " + e.getMessage());
+            }
+        };
+        scheduler.scheduleAtFixedRate(dump, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        return () -> {
+            scheduler.shutdownNow();
+            dump.run();
+        };
+    }
+
+    void dumpTo(Path file) throws IOException {
+        final Path absolute = file.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        final Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writeTo(out);
+        }
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,105 @@
+package befaster.solutions;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary form of a basket: the catalog version, the number of entries, then that many
+ * (SKU ordinal, count) pairs, all as unsigned LEB128 varints. Ordinals only mean something for the
+ * catalog version they were encoded against.
+ *
+ * A typical basket takes a few bytes per SKU instead of a string, and decoding reads the
+ * buffer in place (heap or direct) straight into a count array.
+ */
+public final class BasketCodec {
+
+    private BasketCodec() {
+    }
+
+    public static int maxEncodedSize(int[] counts) {
+        return 10 + 5 + counts.length * 10;
+    }
+
+    /**
+     * Writes the non-zero counts at {@code out}'s position and advances it.
+     */
+    public static void encode(long catalogVersion, int[] counts, ByteBuffer out) {
+        int entries = 0;
+        for (int count : counts) {
+            if (count > 0) entries++;
+        }
+        putVarLong(out, catalogVersion);
+        putVarLong(out, entries);
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0) {
+                putVarLong(out, ordinal);
+                putVarLong(out, counts[ordinal]);
+            }
+        }
+    }
+
+    public static ByteBuffer encode(Catalog catalog, CharSequence skus) {
+        final int[] counts = new int[catalog.getIndex().size()];
+        SkuParser.parse(skus, catalog.getIndex(), counts);
+        final ByteBuffer out = ByteBuffer.allocate(maxEncodedSize(counts));
+        encode(catalog.getVersion(), counts, out);
+        out.flip();
+        return out;
+    }
+
+    /**
+     * Reads one basket from {@code in}'s position, adding its counts to {@code counts}, and leaves
+     * {@code in} positioned after it.
+     *
+     * @return the catalog version the basket was encoded against
+     * @throws InvalidSkuException if the data is truncated, malformed or does not fit {@code counts}
+     */
+    public static long decode(ByteBuffer in, int[] counts) {
+        try {
+            final long version = getVarLong(in);
+            final long entries = getVarLong(in);
+            for (long entry = 0; entry < entries; entry++) {
+                final long ordinal = getVarLong(in);
+                final long count = getVarLong(in);
+                // A ten-byte varint can set the sign bit
+                if (ordinal < 0 || ordinal >= counts.length) throw new InvalidSkuException("Unknown SKU ordinal " + ordinal, in.position());
+                if (count < 0 || count > Integer.MAX_VALUE - counts[(int) ordinal]) throw new InvalidSkuException("Invalid quantity " + count, in.position());
+                counts[(int) ordinal] += (int) count;
+            }
+            return version;
+        } catch (BufferUnderflowException e) {
+            throw new InvalidSkuException("Truncated basket", in.position());
+        }
+    }
+
+    /**
+     * The catalog version of the basket at {@code in}'s position, which is left unchanged.
+     *
+     * @throws InvalidSkuException if the version is truncated or malformed
+     */
+    static long peekVersion(ByteBuffer in) {
+        try {
+            return getVarLong(in.duplicate());
+        } catch (BufferUnderflowException e) {
+            throw new InvalidSkuException("Truncated basket", in.position());
+        }
+    }
+
+    static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new InvalidSkuException("Varint too long", in.position());
+    }
+}
@@ -0,0 +1,77 @@
+package befaster.solutions;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.Arrays;
+
+/**
+ * Bounded, concurrent cache of basket prices, evicting the least recently used entries.
+ *
+ * Keys are the parsed count vector, so "ABA", "2A B" and "A,A,B" share an entry, together with
+ * the catalog version and pricing mode. A price computed against an older catalog can therefore
+ * never be returned; such entries are dropped as soon as a newer catalog is seen.
+ */
+public final class BasketPriceCache {
+    private final Cache<Key, Integer> prices;
+    private volatile long catalogVersion;
+
+    public BasketPriceCache(long maximumSize) {
+        this.prices = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    int price(Catalog catalog, int[] counts, PricingMode mode) {
+        if (catalog.getVersion() > catalogVersion) {
+            catalogVersion = catalog.getVersion();
+            prices.invalidateAll();
+        }
+        final Key key = new Key(catalog.getVersion(), mode, counts);
+        final Integer cached = prices.getIfPresent(key);
+        if (cached != null) return cached;
+
+        final int price = mode == PricingMode.OPTIMAL
+                ? catalog.getSolver().price(counts)
+                : catalog.getPricer().price(counts);
+        prices.put(key, price);
+        return price;
+    }
+
+    public CacheStats getStats() {
+        return prices.stats();
+    }
+
+    public long size() {
+        return prices.size();
+    }
+
+    private static final class Key {
+        final long catalogVersion;
+        final PricingMode mode;
+        final int[] counts;
+        final int hash;
+
+        Key(long catalogVersion, PricingMode mode, int[] counts) {
+            this.catalogVersion = catalogVersion;
+            this.mode = mode;
+            this.counts = counts.clone();
+            this.hash = 31 * (31 * Long.hashCode(catalogVersion) + mode.hashCode()) + Arrays.hashCode(counts);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key that = (Key) o;
+            return catalogVersion == that.catalogVersion && mode == that.mode && Arrays.equals(counts, that.counts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
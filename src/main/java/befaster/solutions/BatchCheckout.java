@@ -0,0 +1,113 @@
+package befaster.solutions;
+
+import befaster.solutions.Checkout.Basket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prices many baskets in one call. Each worker reuses a single {@link Basket} for its whole
+ * slice of the batch, and results are written by index, so they come back in input order.
+ *
+ * Batches smaller than two chunks are priced on the calling thread.
+ */
+public final class BatchCheckout implements AutoCloseable {
+    public static final String THREADS_PROPERTY = "checkout.batch.threads";
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final int threads;
+    private final int chunkSize;
+    private final ExecutorService workers;
+
+    public static BatchCheckout withThreads(int threads) {
+        return new BatchCheckout(threads, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BatchCheckout(int threads, int chunkSize) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be positive: " + threads);
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        this.workers = threads > 1 ? Executors.newFixedThreadPool(threads, daemonThreads()) : null;
+    }
+
+    /**
+     * @return a shared instance sized by the {@value #THREADS_PROPERTY} system property,
+     * or by the number of available processors
+     */
+    public static BatchCheckout shared() {
+        return Shared.INSTANCE;
+    }
+
+    /**
+     * Every basket in the batch is priced against the same {@link Catalog} snapshot.
+     */
+    public int[] checkoutAll(CharSequence[] baskets) {
+        final Catalog catalog = Catalog.current();
+        final int[] prices = new int[baskets.length];
+        if (workers == null || baskets.length < 2 * chunkSize) {
+            priceRange(catalog, baskets, prices, 0, baskets.length);
+            return prices;
+        }
+
+        final int chunks = Math.min(threads, (baskets.length + chunkSize - 1) / chunkSize);
+        final int perChunk = (baskets.length + chunks - 1) / chunks;
+        final List<Future<?>> pending = new ArrayList<>(chunks);
+        for (int from = 0; from < baskets.length; from += perChunk) {
+            final int start = from;
+            final int end = Math.min(baskets.length, from + perChunk);
+            pending.add(workers.submit(() -> priceRange(catalog, baskets, prices, start, end)));
+        }
+        for (Future<?> chunk : pending) {
+            try {
+                chunk.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while pricing batch", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to price batch", e.getCause());
+            }
+        }
+        return prices;
+    }
+
+    public List<Integer> checkoutAll(List<String> baskets) {
+        final int[] prices = checkoutAll(baskets.toArray(new CharSequence[baskets.size()]));
+        final List<Integer> results = new ArrayList<>(prices.length);
+        for (int price : prices) {
+            results.add(price);
+        }
+        return results;
+    }
+
+    private static void priceRange(Catalog catalog, CharSequence[] baskets, int[] prices, int from, int to) {
+        final Basket basket = new Basket(catalog.getIndex());
+        for (int i = from; i < to; i++) {
+            prices[i] = Checkout.price(baskets[i], basket, catalog);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (workers != null) workers.shutdown();
+    }
+
+    private static ThreadFactory daemonThreads() {
+        final AtomicInteger created = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, "batch-checkout-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class Shared {
+        static final BatchCheckout INSTANCE = withThreads(
+                Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+}
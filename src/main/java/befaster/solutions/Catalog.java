@@ -0,0 +1,278 @@
+package befaster.solutions;
+
+import befaster.solutions.Checkout.AnyOf;
+import befaster.solutions.Checkout.FreeProduct;
+import befaster.solutions.Checkout.GroupMatch;
+import befaster.solutions.Checkout.Offer;
+import befaster.solutions.Checkout.ProductMatch;
+import befaster.solutions.Checkout.ReducedPrice;
+import befaster.util.FileWatcher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * An immutable snapshot of prices and offers, compiled into its {@link PricingEngine},
+ * {@link CompiledPricer} and {@link PricingSolver}. Checkouts read {@link #current()} once and price against that
+ * snapshot; a reload builds a whole new catalog and swaps it in with a single volatile write.
+ *
+ * The file format is one rule per line:
+ * <pre>
+ * price,A,50          unit price of A
+ * multibuy,A,3,130    3 A for 130
+ * free,E,2,B          buy 2 E, get one B free
+ * anyof,STXYZ,3,45    any 3 of S, T, X, Y, Z for 45
+ * </pre>
+ * An offer can also be written in {@link OfferRules} form, e.g. {@code offer,2E get one B free}.
+ *
+ * {@code config/catalog.csv} is the only place prices and offers are written down: the build
+ * copies it into the jar, where {@link #defaults()} reads it, and {@link #watch(Path)} follows
+ * edits to it on disk.
+ */
+public final class Catalog {
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private static final String DEFAULTS_RESOURCE = "catalog.csv";
+    private static final Catalog DEFAULTS = bundled();
+
+    private static volatile Catalog current = DEFAULTS;
+
+    static {
+        DEFAULTS.pricer.makeCurrent();
+    }
+
+    private final long version;
+    private final Map<String, Integer> prices;
+    private final List<Offer> offers;
+    private final SkuIndex index;
+    private final OfferIndex offerIndex;
+    private final PricingEngine engine;
+    private final CompiledPricer pricer;
+    private final PricingSolver solver;
+
+    private Catalog(long version, Map<String, Integer> prices, List<Offer> offers,
+                    SkuIndex index, PricingEngine engine, PricingSolver solver) {
+        this.version = version;
+        this.prices = Collections.unmodifiableMap(prices);
+        this.offers = Collections.unmodifiableList(offers);
+        this.index = index;
+        this.offerIndex = OfferIndex.compile(index, this.offers);
+        this.engine = engine;
+        this.pricer = CompiledPricer.compile(engine);
+        this.solver = solver;
+    }
+
+    public static Catalog of(Map<String, Integer> prices, List<Offer> offers) {
+        return of(VERSIONS.incrementAndGet(), prices, offers);
+    }
+
+    private static Catalog of(long version, Map<String, Integer> prices, List<Offer> offers) {
+        final SkuIndex index = SkuIndex.of(prices.keySet());
+        final PricingEngine engine = PricingEngine.compile(index, prices, offers);
+        return new Catalog(version, new LinkedHashMap<>(prices), new ArrayList<>(offers),
+                index, engine, PricingSolver.compile(engine));
+    }
+
+    /**
+     * Rebuilds a catalog published elsewhere, keeping the publisher's version so every copy of it
+     * agrees. Catalogs created locally afterwards get higher versions.
+     */
+    public static Catalog replica(long version, List<String> rules) {
+        VERSIONS.accumulateAndGet(version, Math::max);
+        return parse(rules, version);
+    }
+
+    public static Catalog defaults() {
+        return DEFAULTS;
+    }
+
+    private static Catalog bundled() {
+        try (InputStream in = Catalog.class.getResourceAsStream(DEFAULTS_RESOURCE)) {
+            if (in == null) throw new IllegalStateException("No " + DEFAULTS_RESOURCE + " next to " + Catalog.class.getName());
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return parse(reader.lines().collect(Collectors.toList()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Catalog current() {
+        return current;
+    }
+
+    public static void install(Catalog catalog) {
+        catalog.pricer.makeCurrent();
+        current = catalog;
+    }
+
+    /**
+     * A file without any prices is rejected, as it would make every checkout an error.
+     */
+    public static Catalog load(Path file) throws IOException {
+        final Catalog catalog = parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+        if (catalog.prices.isEmpty()) {
+            throw new IllegalArgumentException("no prices in " + file);
+        }
+        return catalog;
+    }
+
+    public static Catalog parse(List<String> lines) {
+        return parse(lines, VERSIONS.incrementAndGet());
+    }
+
+    private static Catalog parse(List<String> lines, long version) {
+        final Map<String, Integer> prices = new LinkedHashMap<>();
+        final List<String[]> rules = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            final String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            final String[] fields = line.split("\\s*,\\s*");
+            try {
+                if (fields[0].equals("price")) {
+                    expectFields(fields, 3);
+                    prices.put(fields[1], amount(fields[2]));
+                } else {
+                    rules.add(fields);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+
+        final List<Offer> offers = new ArrayList<>(rules.size());
+        for (String[] rule : rules) {
+            offers.add(offerOf(rule, prices));
+        }
+        return of(version, prices, offers);
+    }
+
+    /**
+     * The catalog as rule lines that {@link #parse(List)} reads back, e.g. to send to another node.
+     */
+    public List<String> toRules() {
+        final List<String> rules = new ArrayList<>(prices.size() + offers.size());
+        prices.forEach((sku, price) -> rules.add("price," + sku + "," + price));
+        for (Offer offer : offers) {
+            final String trigger = offer.productMatch.product + "," + offer.productMatch.quantity;
+            if (offer.benefit instanceof ReducedPrice) {
+                rules.add("multibuy," + trigger + "," + ((ReducedPrice) offer.benefit).totalPrice);
+            } else if (offer.benefit instanceof FreeProduct) {
+                rules.add("free," + trigger + "," + ((FreeProduct) offer.benefit).product);
+            } else if (offer.benefit instanceof AnyOf) {
+                rules.add("anyof," + trigger + "," + ((AnyOf) offer.benefit).totalPrice);
+            } else {
+                throw new IllegalStateException("No rule syntax for " + offer.benefit.getClass().getSimpleName());
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Loads {@code file} now, if it exists, and reloads it whenever it changes. A file that fails
+     * to load leaves the current catalog in place.
+     */
+    public static FileWatcher watch(Path file) throws IOException {
+        if (Files.exists(file)) install(load(file));
+        return FileWatcher.watch(file, () -> reload(file));
+    }
+
+    private static void reload(Path file) {
+        try {
+            final Catalog catalog = load(file);
+            install(catalog);
+            System.out.println("Catalog v" + catalog.version + " loaded from " + file);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Keeping catalog v" + current.version + ", could not load " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static Offer offerOf(String[] rule, Map<String, Integer> prices) {
+        if (rule[0].equals("offer")) {
+            expectFields(rule, 2);
+            return OfferRules.parse(rule[1], prices);
+        }
+        expectFields(rule, 4);
+        final int quantity = quantity(rule[2]);
+        switch (rule[0]) {
+            case "multibuy":
+                expectPrices(prices, rule[1]);
+                return Offer.of(ProductMatch.of(rule[1], quantity), ReducedPrice.of(rule[1], quantity, amount(rule[3])));
+            case "free":
+                expectPrices(prices, rule[1], rule[3]);
+                return Offer.of(ProductMatch.of(rule[1], quantity), FreeProduct.of(rule[3]));
+            case "anyof":
+                expectPrices(prices, rule[1].split(""));
+                return Offer.of(GroupMatch.of(rule[1], quantity), AnyOf.of(rule[1], quantity, amount(rule[3]), prices));
+            default:
+                throw new IllegalArgumentException("Unknown rule: " + rule[0]);
+        }
+    }
+
+    static int quantity(String field) {
+        final int quantity = Integer.parseInt(field);
+        if (quantity < 1) throw new IllegalArgumentException("Quantity must be at least 1: " + field);
+        return quantity;
+    }
+
+    static int amount(String field) {
+        final int amount = Integer.parseInt(field);
+        if (amount < 0) throw new IllegalArgumentException("Price must not be negative: " + field);
+        return amount;
+    }
+
+    static void expectPrices(Map<String, Integer> prices, String... skus) {
+        for (String sku : skus) {
+            if (!prices.containsKey(sku)) throw new IllegalArgumentException("No price for " + sku);
+        }
+    }
+
+    private static void expectFields(String[] fields, int expected) {
+        if (fields.length != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " fields for " + fields[0] + " but got " + fields.length);
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<String, Integer> getPrices() {
+        return prices;
+    }
+
+    public List<Offer> getOffers() {
+        return offers;
+    }
+
+    public SkuIndex getIndex() {
+        return index;
+    }
+
+    OfferIndex getOfferIndex() {
+        return offerIndex;
+    }
+
+    public PricingEngine getEngine() {
+        return engine;
+    }
+
+    CompiledPricer getPricer() {
+        return pricer;
+    }
+
+    public PricingSolver getSolver() {
+        return solver;
+    }
+}
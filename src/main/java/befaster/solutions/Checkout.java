@@ -1,14 +1,13 @@
 package befaster.solutions;
 
-import com.google.common.collect.Lists;
-import com.google.common.primitives.Chars;
-
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Function;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
-
-import static java.util.stream.Collectors.counting;
+import java.util.stream.IntStream;
 
 public class Checkout {
 
@@ -20,17 +19,91 @@ public class Checkout {
     public static final String FIFTH_PROD = "E";
     public static final String SIXTH_PROD = "F";
 
+    /**
+     * Item counts indexed by {@link SkuIndex} ordinal. Instances are meant to be reused:
+     * {@link #fill(CharSequence)} clears and re-parses in place without allocating.
+     */
     public static class Basket{
-        final HashMap<String, Long> skus;
+        private static final int STREAM_BUFFER = 8192;
+
+        final SkuIndex index;
+        final int[] skus;
+        private final SkuParser parser;
         int cost;
 
-        public Basket(Map<String, Long> skus) {
-            this.skus = new HashMap<>(skus);
+        public Basket(SkuIndex index) {
+            this.index = index;
+            this.skus = new int[index.size()];
+            this.parser = new SkuParser(index);
             this.cost = 0;
         }
 
+        public Basket fill(CharSequence input) {
+            clear();
+            parser.reset(skus);
+            final int length = input.length();
+            for (int i = 0; i < length; i++) {
+                parser.accept(input.charAt(i));
+            }
+            parser.finish();
+            return this;
+        }
+
+        /**
+         * Parses {@code input} through a fixed-size buffer, so memory use does not depend on its length.
+         */
+        public Basket fill(Reader input) throws IOException {
+            clear();
+            parser.reset(skus);
+            final char[] buffer = new char[STREAM_BUFFER];
+            for (int read; (read = input.read(buffer)) != -1; ) {
+                for (int i = 0; i < read; i++) {
+                    parser.accept(buffer[i]);
+                }
+            }
+            parser.finish();
+            return this;
+        }
+
+        /**
+         * Like {@link #fill(Reader)}, reading bytes directly: SKUs are ASCII, so there is nothing to decode.
+         */
+        public Basket fill(ReadableByteChannel input) throws IOException {
+            clear();
+            parser.reset(skus);
+            final ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER);
+            while (input.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    parser.accept((char) (buffer.get() & 0xFF));
+                }
+                buffer.clear();
+            }
+            parser.finish();
+            return this;
+        }
+
+        public Basket clear() {
+            Arrays.fill(skus, 0);
+            cost = 0;
+            return this;
+        }
+
+        int count(String product) {
+            final int ordinal = index.ordinalOf(product);
+            return ordinal == SkuIndex.NOT_A_SKU ? 0 : skus[ordinal];
+        }
+
+        void take(String product, int quantity) {
+            final int ordinal = index.ordinalOf(product);
+            skus[ordinal] = Math.max(0, skus[ordinal] - quantity);
+        }
+
         boolean isEmpty(){
-            return skus.isEmpty();
+            for (int count : skus) {
+                if (count > 0) return false;
+            }
+            return true;
         }
 
         public int getCost() {
@@ -55,42 +128,88 @@ public class Checkout {
         protected abstract boolean matches(Basket basket);
     }
 
+    /**
+     * Any {@code quantity} items from {@code productGroup} for {@code totalPrice}. All bundles are
+     * taken at once, filled with the most expensive items first since that saves the customer most,
+     * stopping at the first bundle whose items would cost no more than {@code totalPrice} on their own.
+     */
     public static class AnyOf extends Benefit{
         protected static final int PRIORITY = 2;
         final Set<String> productGroup;
+        final String[] productsByPrice;
+        final int[] unitPrices;
         final int totalPrice;
         final int quantity;
 
-        public AnyOf(Set<String> productGroup, int totalPrice, int quantity) {
+        public static AnyOf of(String productGroup, int quantity, int totalPrice, Map<String, Integer> prices) {
+            final Set<String> products = new TreeSet<>();
+            for (char product : productGroup.toCharArray()) {
+                products.add(String.valueOf(product));
+            }
+            return new AnyOf(products, totalPrice, quantity, prices);
+        }
+
+        public AnyOf(Set<String> productGroup, int totalPrice, int quantity, Map<String, Integer> prices) {
             super(PRIORITY);
             this.productGroup = productGroup;
+            this.productsByPrice = productGroup.stream()
+                    .sorted(Comparator.comparing((String product) -> prices.get(product)).reversed()
+                            .thenComparing(Comparator.naturalOrder()))
+                    .toArray(String[]::new);
+            this.unitPrices = new int[productsByPrice.length];
+            for (int i = 0; i < productsByPrice.length; i++) {
+                unitPrices[i] = prices.get(productsByPrice[i]);
+            }
             this.totalPrice = totalPrice;
             this.quantity = quantity;
         }
 
         @Override
         protected void applyOnBasket(Basket basket) {
-            if(matches(basket)){
-                AtomicInteger i = new AtomicInteger(quantity);
-                productGroup.forEach(
-                        prod -> {
-                            Long nProd = basket.skus.getOrDefault(prod, 0L);
-                            if(i.intValue() > 0){
-
-                            }
-                        }
-                );
+            final int bundles = bundlesWorthTaking(basket);
+            int toTake = bundles * quantity;
+            for (int i = 0; i < productsByPrice.length && toTake > 0; i++) {
+                final int taken = Math.min(toTake, basket.count(productsByPrice[i]));
+                basket.take(productsByPrice[i], taken);
+                toTake -= taken;
             }
+            basket.cost += bundles * totalPrice;
+        }
 
+        private int bundlesWorthTaking(Basket basket) {
+            int bundles = 0;
+            int filled = 0;
+            int filledCost = 0;
+            for (int i = 0; i < productsByPrice.length; i++) {
+                int count = basket.count(productsByPrice[i]);
+                while (count > 0) {
+                    if (filled == 0 && count >= quantity) {
+                        if (quantity * unitPrices[i] <= totalPrice) return bundles;
+                        bundles += count / quantity;
+                        count %= quantity;
+                        continue;
+                    }
+                    final int taken = Math.min(quantity - filled, count);
+                    filled += taken;
+                    filledCost += taken * unitPrices[i];
+                    count -= taken;
+                    if (filled == quantity) {
+                        if (filledCost <= totalPrice) return bundles;
+                        bundles++;
+                        filled = 0;
+                        filledCost = 0;
+                    }
+                }
+            }
+            return bundles;
         }
 
         @Override
         protected boolean matches(Basket basket) {
-            final long sum = basket.skus.entrySet().stream()
-                    .filter(e -> productGroup.contains(e.getKey()))
-                    .map(e -> e.getValue())
-                    .mapToLong(i -> i)
-                    .sum();
+            int sum = 0;
+            for (String product : productsByPrice) {
+                sum += basket.count(product);
+            }
             return sum >= quantity;
         }
     }
@@ -115,14 +234,14 @@ public class Checkout {
         @Override
         protected void applyOnBasket(Basket basket) {
             if(matches(basket)) {
-                basket.skus.computeIfPresent(product, (key, value) -> value - quantity);
+                basket.take(product, quantity);
                 basket.cost += totalPrice;
             }
         }
 
         @Override
         protected boolean matches(Basket basket) {
-            return basket.skus.getOrDefault(product, 0L) >= quantity;
+            return basket.count(product) >= quantity;
         }
     }
 
@@ -142,19 +261,19 @@ public class Checkout {
         @Override
         protected void applyOnBasket(Basket basket) {
             if(matches(basket)) {
-                basket.skus.computeIfPresent(product, (key, value) -> value > 0 ? value - 1 : 0);
+                basket.take(product, 1);
             }
         }
 
         @Override
         protected boolean matches(Basket basket) {
-            return basket.skus.getOrDefault(product, 0L) > 0;
+            return basket.count(product) > 0;
         }
     }
 
     public static class Offer implements Comparable<Offer>{
-        private ProductMatch productMatch;
-        private Benefit benefit;
+        final ProductMatch productMatch;
+        final Benefit benefit;
 
         public static Offer of(ProductMatch productMatch, Benefit benefit) {
             return new Offer(productMatch, benefit);
@@ -221,6 +340,30 @@ public class Checkout {
         }
     }
 
+    /**
+     * Matches any product of a group; the {@link AnyOf} benefit then settles the whole group in one go.
+     */
+    public static class GroupMatch extends ProductMatch {
+        final Set<String> productGroup;
+
+        public static GroupMatch of(String productGroup, Integer quantity) {
+            return new GroupMatch(productGroup, quantity);
+        }
+
+        public GroupMatch(String productGroup, Integer quantity) {
+            super(productGroup, quantity);
+            this.productGroup = new HashSet<>();
+            for (char product : productGroup.toCharArray()) {
+                this.productGroup.add(String.valueOf(product));
+            }
+        }
+
+        @Override
+        public int nMatches(String product, int nProds) {
+            return productGroup.contains(product) && nProds > 0 ? 1 : 0;
+        }
+    }
+
     public static class OfferMatch {
         Integer nMatches;
         ProductMatch productMatch;
@@ -230,162 +373,238 @@ public class Checkout {
             this.nMatches = nMatches;
         }
     }
-    protected static final String DIGITS = "[\\d]";
-
-    public static final Map<String, Integer> PROD_COSTS = new HashMap<>();
-
-    public static final int FIRST_PROD_SINGLE_COST = 50;
-    public static final int SECOND_PROD_SINGLE_COST = 30;
-    public static final int THIRD_PROD_SINGLE_COST = 20;
-    public static final int FOURTH_PROD_SINGLE_COST = 15;
-    public static final int FIFTH_PROD_SINGLE_COST = 40;
-    public static final int SIXTH_PROD_SINGLE_COST = 10;
-
-    public static final int OFFER_A3_COST = 130;
-    public static final int OFFER_A5_COST = 200;
-    public static final int OFFER_B2_COST = 45;
-
-
-    static {
-        PROD_COSTS.put("A",50);
-        PROD_COSTS.put("B",30);
-        PROD_COSTS.put("C",20);
-        PROD_COSTS.put("D",15);
-        PROD_COSTS.put("E",40);
-        PROD_COSTS.put("F",10);
-        PROD_COSTS.put("G",20);
-        PROD_COSTS.put("H",10);
-        PROD_COSTS.put("I",35);
-        PROD_COSTS.put("J",60);
-        PROD_COSTS.put("K",80);
-        PROD_COSTS.put("L",90);
-        PROD_COSTS.put("M",15);
-        PROD_COSTS.put("N",40);
-        PROD_COSTS.put("O",10);
-        PROD_COSTS.put("P",50);
-        PROD_COSTS.put("Q",30);
-        PROD_COSTS.put("R",50);
-        PROD_COSTS.put("S",30);
-        PROD_COSTS.put("T",20);
-        PROD_COSTS.put("U",40);
-        PROD_COSTS.put("V",50);
-        PROD_COSTS.put("W",20);
-        PROD_COSTS.put("X",90);
-        PROD_COSTS.put("Y",10);
-        PROD_COSTS.put("Z",50);
-    }
-
-    public static final Set<String> PRODUCTS = PROD_COSTS.keySet();
-    public static final List<Offer> OFFER =
-            Lists.newArrayList(
-                    Offer.of(ProductMatch.of(FIRST_PROD, 3), ReducedPrice.of(FIRST_PROD, 3,OFFER_A3_COST)),
-                    Offer.of(ProductMatch.of(FIRST_PROD, 5), ReducedPrice.of(FIRST_PROD, 5, OFFER_A5_COST)),
-                    Offer.of(ProductMatch.of(SECOND_PROD, 2), ReducedPrice.of(SECOND_PROD, 2, OFFER_B2_COST)),
-                    Offer.of(ProductMatch.of(FIFTH_PROD, 2), FreeProduct.of(SECOND_PROD)),
-                    Offer.of(ProductMatch.of(SIXTH_PROD, 3), FreeProduct.of(SIXTH_PROD)),
-                    Offer.of(ProductMatch.of("H", 5), ReducedPrice.of("H", 5, 45)),
-                    Offer.of(ProductMatch.of("H", 10), ReducedPrice.of("H", 10, 80)),
-                    Offer.of(ProductMatch.of("K", 2), ReducedPrice.of("K", 2, 150)),
-                    Offer.of(ProductMatch.of("N", 3), FreeProduct.of("M")),
-                    Offer.of(ProductMatch.of("P", 5), ReducedPrice.of("P", 5, 200)),
-                    Offer.of(ProductMatch.of("Q", 3), ReducedPrice.of("Q", 3, 80)),
-                    Offer.of(ProductMatch.of("R", 3), FreeProduct.of("Q")),
-                    Offer.of(ProductMatch.of("U", 4), FreeProduct.of("U")),
-                    Offer.of(ProductMatch.of("V", 2), ReducedPrice.of("V", 2, 90)),
-                    Offer.of(ProductMatch.of("V", 3), ReducedPrice.of("V", 3, 130))
-
-            );
 
+    private static final ThreadLocal<Basket> BASKETS = ThreadLocal.withInitial(() -> new Basket(Catalog.current().getIndex()));
+
+    private static volatile ParallelMatching parallelMatching;
+    private static volatile BasketPriceCache priceCache;
 
     public static Integer checkout(String skus) {
-        int value;
+        return checkout(skus, PricingMode.GREEDY);
+    }
+
+    public static Integer checkout(String skus, PricingMode mode) {
         if (skus == null || skus.isEmpty()) return 0;
-        Map<String, Long> skuMap = skusToMap(skus);
-        if (!isValid(skuMap.keySet())) return ERROR;
-        final Basket basket = new Basket(skuMap);
-        value = calculateBasketPrice(basket);
-        return value;
-    }
-
-    private static int calculateBasketPrice(final Basket basket) {
-        final List<Offer> offers = findMatchingOffers(new HashMap<>(basket.skus));
-        offers.stream().sorted()
-                .forEach(offer -> offer.applyOnBasket(basket));
-        PROD_COSTS.forEach((product, cost) -> applyCostOnBasket(basket, product, cost));
-        return basket.cost;
+        final CheckoutTracer tracer = CheckoutTracer.sampled();
+        final long start = tracer != null ? System.nanoTime() : 0L;
+        final Catalog catalog = Catalog.current();
+        final Basket basket;
+        try {
+            basket = scratchBasket(catalog).fill(skus);
+        } catch (InvalidSkuException e) {
+            if (tracer != null) tracer.invalid(skus, e);
+            return ERROR;
+        }
+        final int price = price(basket, catalog, mode);
+        if (tracer != null) {
+            tracer.counts(basket.skus, catalog.getIndex());
+            tracer.priced(skus, price, System.nanoTime() - start);
+        }
+        return price;
     }
 
-    private static void applyCostOnBasket(Basket basket, String product, Integer cost) {
-        final int nProds = basket.skus.getOrDefault(product, 0L).intValue();
-        basket.cost = basket.cost + nProds * cost;
-        basket.skus.put(product,0L);
+    /**
+     * Prices a basket of any size as it is read, e.g. a multi-megabyte import file.
+     * Gives the same result as {@link #checkout(String)} would on the whole text.
+     */
+    public static Integer checkout(Reader skus) throws IOException {
+        return checkout(skus, PricingMode.GREEDY);
     }
 
-    static List<Offer> findMatchingOffers(Map<String, Long> skuMap){
-        if(skuMap.isEmpty()) return Collections.emptyList();
-        return skuMap.entrySet()
-                .stream()
-                .map(entry -> findMatchingOffers(entry.getKey(), entry.getValue().intValue()))
-                .flatMap(Collection::stream)
-                .sorted()
-                .collect(Collectors.toList());
+    public static Integer checkout(Reader skus, PricingMode mode) throws IOException {
+        final Catalog catalog = Catalog.current();
+        final Basket basket;
+        try {
+            basket = scratchBasket(catalog).fill(skus);
+        } catch (InvalidSkuException e) {
+            return ERROR;
+        }
+        return price(basket, catalog, mode);
     }
 
-    private static List<Offer> findMatchingOffers(String key, int value) {
-        return OFFER.parallelStream()
-                .map(offer -> getOffers(key, value, offer))
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList());
+    public static Integer checkout(ReadableByteChannel skus) throws IOException {
+        return checkout(skus, PricingMode.GREEDY);
     }
 
-    private static List<Offer> getOffers(String key, int value, Offer offer) {
-        final int nMatches = offer.nMatches(key, value);
-        if(nMatches == 0) return Collections.emptyList();
-        final ArrayList<Offer> offers = Lists.newArrayListWithExpectedSize(nMatches);
-        for (int i = 0; i < nMatches; i++){
-            offers.add(offer);
+    public static Integer checkout(ReadableByteChannel skus, PricingMode mode) throws IOException {
+        final Catalog catalog = Catalog.current();
+        final Basket basket;
+        try {
+            basket = scratchBasket(catalog).fill(skus);
+        } catch (InvalidSkuException e) {
+            return ERROR;
         }
-        return offers;
+        return price(basket, catalog, mode);
     }
 
+    /**
+     * Prices one {@link BasketCodec} basket read from {@code basket}'s position, which is left
+     * after it. A basket encoded against another catalog version is an {@link #ERROR}, as its
+     * ordinals may now name different SKUs.
+     */
+    public static int checkout(ByteBuffer basket) {
+        final Catalog catalog = Catalog.current();
+        final Basket scratch = scratchBasket(catalog).clear();
+        try {
+            if (BasketCodec.decode(basket, scratch.skus) != catalog.getVersion()) return ERROR;
+        } catch (InvalidSkuException e) {
+            return ERROR;
+        }
+        return price(scratch, catalog, PricingMode.GREEDY);
+    }
 
-    private static Optional<OfferMatch> makeOfferMatch(ProductMatch productMatch, int nProds) {
-        return nProds >= productMatch.quantity ? Optional.of(new OfferMatch(productMatch, (int) (nProds / productMatch.quantity))) : Optional.empty();
+    private static int price(Basket basket, Catalog catalog, PricingMode mode) {
+        final BasketPriceCache cache = priceCache;
+        if (cache != null) {
+            return cache.price(catalog, basket.skus, mode);
+        }
+        return mode == PricingMode.OPTIMAL
+                ? catalog.getSolver().price(basket.skus)
+                : catalog.getPricer().price(basket.skus);
+    }
+
+    /**
+     * Serves repeated baskets from {@code cache}; pass null to price every call from scratch.
+     */
+    public static void usePriceCache(BasketPriceCache cache) {
+        priceCache = cache;
+    }
+
+    /**
+     * Prices every basket, in input order, on {@link BatchCheckout#shared()}.
+     */
+    public static int[] checkoutAll(CharSequence[] baskets) {
+        return BatchCheckout.shared().checkoutAll(baskets);
     }
 
-    private static Map<String, Long> skusToMap(String skus) {
-        if (skus == null) return new HashMap<>();
-        final String[] split = skus.split(",");
-        return Arrays.asList(split).stream()
-                .map(val -> val.split(" ")).map(Arrays::asList)
-                .flatMap(Collection::stream)
-                .map(Checkout::transformNumbersToMultiples)
-                .flatMap(Collection::stream)
-                .peek(Checkout::test)
-                .map(string -> Chars.asList(string.toCharArray()))
-                .peek(Checkout::test)
-                .flatMap(Collection::stream)
-                .map(Object::toString)
-                .collect(Collectors.groupingBy(Function.identity(), counting()));
+    public static List<Integer> checkoutAll(List<String> baskets) {
+        return BatchCheckout.shared().checkoutAll(baskets);
     }
 
-    private static void test(Object a) {
-        System.out.println(a);
+    static int price(CharSequence skus, Basket basket, Catalog catalog) {
+        if (skus == null || skus.length() == 0) return 0;
+        try {
+            basket.fill(skus);
+        } catch (InvalidSkuException e) {
+            return ERROR;
+        }
+        return catalog.getPricer().price(basket.skus);
+    }
+
+    /**
+     * @return this thread's reusable basket, replaced when the catalog's SKUs have changed
+     */
+    static Basket scratchBasket(Catalog catalog) {
+        final Basket basket = BASKETS.get();
+        if (basket.index == catalog.getIndex()) return basket;
+        final Basket replacement = new Basket(catalog.getIndex());
+        BASKETS.set(replacement);
+        return replacement;
     }
 
-    private static List<String> transformNumbersToMultiples(String string) {
-        if (!Character.isDigit(string.charAt(0))) return Lists.newArrayList(string);
-        List<String> multiples = new ArrayList<>();
-        Integer occurences = Integer.valueOf(string.replaceAll("[^\\d]", ""));
-        String value = string.replaceAll(DIGITS, "");
-        for (int i = 0; i < occurences; i++) {
-            multiples.add(value);
+    /**
+     * Prices through the original, interpreted {@link Offer} pipeline.
+     * Kept as the reference the compiled {@link PricingEngine} is checked against.
+     */
+    public static Integer referenceCheckout(String skus) {
+        if (skus == null || skus.isEmpty()) return 0;
+        final Catalog catalog = Catalog.current();
+        final Basket basket;
+        try {
+            basket = scratchBasket(catalog).fill(skus);
+        } catch (InvalidSkuException e) {
+            return ERROR;
         }
-        return multiples;
+        return calculateBasketPrice(basket, catalog);
     }
 
-    public static boolean isValid(Set<String> skus) {
-        return PRODUCTS.containsAll(skus);
+    static int calculateBasketPrice(final Basket basket, final Catalog catalog) {
+        final OfferIndex offerIndex = catalog.getOfferIndex();
+        final long[] present = offerIndex.present(basket.skus);
+        final List<Offer> offers = findMatchingOffers(basket, offerIndex, present);
+        offers.forEach(offer -> offer.applyOnBasket(basket));
+        for (int ordinal = OfferIndex.nextSetBit(present, 0); ordinal >= 0; ordinal = OfferIndex.nextSetBit(present, ordinal + 1)) {
+            applyCostOnBasket(basket, ordinal, catalog.getPrices().get(basket.index.skuAt(ordinal)));
+        }
+        return basket.cost;
+    }
+
+    private static void applyCostOnBasket(Basket basket, int ordinal, Integer cost) {
+        basket.cost = basket.cost + basket.skus[ordinal] * cost;
+        basket.skus[ordinal] = 0;
+    }
+
+    static List<Offer> findMatchingOffers(Basket basket, List<Offer> catalogOffers){
+        return findMatchingOffers(basket, OfferIndex.compile(basket.index, catalogOffers));
+    }
+
+    /**
+     * @return the offers that can change the basket's price, once per match, in application order
+     */
+    static List<Offer> findMatchingOffers(Basket basket, OfferIndex offerIndex){
+        return findMatchingOffers(basket, offerIndex, offerIndex.present(basket.skus));
+    }
+
+    private static List<Offer> findMatchingOffers(Basket basket, OfferIndex offerIndex, long[] present){
+        if(basket.isEmpty()) return Collections.emptyList();
+        final int[] counts = basket.skus;
+        final ParallelMatching parallel = parallelMatching;
+        if (parallel != null && parallel.appliesTo(basket)) {
+            return parallel.pool.submit(() -> IntStream.range(0, counts.length).parallel()
+                    .filter(ordinal -> counts[ordinal] > 0)
+                    .mapToObj(ordinal -> {
+                        final List<Offer> matches = new ArrayList<>();
+                        offerIndex.addMatches(ordinal, counts[ordinal], present, matches);
+                        return matches;
+                    })
+                    .flatMap(Collection::stream)
+                    .sorted()
+                    .collect(Collectors.toList())).join();
+        }
+        final List<Offer> matches = new ArrayList<>();
+        for (int ordinal = OfferIndex.nextSetBit(present, 0); ordinal >= 0; ordinal = OfferIndex.nextSetBit(present, ordinal + 1)) {
+            offerIndex.addMatches(ordinal, counts[ordinal], present, matches);
+        }
+        matches.sort(null);
+        return matches;
+    }
+
+    /**
+     * Matches offers for baskets of at least {@code itemThreshold} items on a dedicated pool
+     * instead of the calling thread. Smaller baskets never touch fork/join.
+     *
+     * A pool being replaced is not shut down: checkouts that read it just before the switch may
+     * still submit to it. Its idle workers exit on their own once those have finished.
+     */
+    public static void useParallelMatching(int threads, long itemThreshold) {
+        parallelMatching = new ParallelMatching(new ForkJoinPool(threads), itemThreshold);
+    }
+
+    public static void useSequentialMatching() {
+        parallelMatching = null;
+    }
+
+    private static class ParallelMatching {
+        final ForkJoinPool pool;
+        final long itemThreshold;
+
+        ParallelMatching(ForkJoinPool pool, long itemThreshold) {
+            this.pool = pool;
+            this.itemThreshold = itemThreshold;
+        }
+
+        boolean appliesTo(Basket basket) {
+            long items = 0;
+            for (int count : basket.skus) {
+                items += count;
+            }
+            return items >= itemThreshold;
+        }
+    }
+
+
+    private static Optional<OfferMatch> makeOfferMatch(ProductMatch productMatch, int nProds) {
+        return nProds >= productMatch.quantity ? Optional.of(new OfferMatch(productMatch, (int) (nProds / productMatch.quantity))) : Optional.empty();
     }
 
 
@@ -0,0 +1,151 @@
+package befaster.solutions;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Opt-in tracing for {@link Checkout}. Nothing is traced until a tracer is installed; while none
+ * is, the checkout path only reads one volatile field.
+ *
+ * Sampled calls format a single key=value line and hand it to a lock-free ring buffer, which a
+ * daemon thread drains to a file. Lines are dropped rather than slowing callers down.
+ */
+public final class CheckoutTracer implements Closeable {
+    public enum Level { ERROR, BASKET, DETAIL }
+
+    public static final String FILE_PROPERTY = "checkout.trace.file";
+    public static final String LEVEL_PROPERTY = "checkout.trace.level";
+    public static final String SAMPLE_PROPERTY = "checkout.trace.sample";
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static volatile CheckoutTracer active;
+
+    private final Level level;
+    private final double sampleRate;
+    private final TraceRingBuffer buffer;
+    private final Writer out;
+    private final Thread drainer;
+    private volatile boolean closed;
+
+    public static CheckoutTracer toFile(Path file, Level level, double sampleRate, int capacity) throws IOException {
+        final Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return new CheckoutTracer(out, level, sampleRate, capacity);
+    }
+
+    CheckoutTracer(Writer out, Level level, double sampleRate, int capacity) {
+        this.level = level;
+        this.sampleRate = sampleRate;
+        this.buffer = new TraceRingBuffer(capacity);
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+        this.drainer = new Thread(this::drain, "checkout-tracer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    public static void install(CheckoutTracer tracer) {
+        active = tracer;
+    }
+
+    public static void uninstall() {
+        active = null;
+    }
+
+    /**
+     * Installs a file tracer when the {@value #FILE_PROPERTY} system property is set.
+     */
+    public static void installFromSystemProperties() throws IOException {
+        final String file = System.getProperty(FILE_PROPERTY);
+        if (file == null) return;
+        final Level level = Level.valueOf(System.getProperty(LEVEL_PROPERTY, Level.BASKET.name()));
+        final double sampleRate = Double.parseDouble(System.getProperty(SAMPLE_PROPERTY, "1.0"));
+        install(toFile(Paths.get(file), level, sampleRate, DEFAULT_CAPACITY));
+    }
+
+    /**
+     * @return the installed tracer if this call is sampled, otherwise null
+     */
+    static CheckoutTracer sampled() {
+        final CheckoutTracer tracer = active;
+        if (tracer == null) return null;
+        return tracer.sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < tracer.sampleRate ? tracer : null;
+    }
+
+    boolean isEnabled(Level level) {
+        return level.compareTo(this.level) <= 0;
+    }
+
+    void invalid(CharSequence skus, InvalidSkuException e) {
+        if (!isEnabled(Level.ERROR)) return;
+        buffer.offer(line(Level.ERROR).append(" skus=\"").append(skus)
+                .append("\" position=").append(e.getPosition()).toString());
+    }
+
+    void priced(CharSequence skus, int price, long nanos) {
+        if (!isEnabled(Level.BASKET)) return;
+        buffer.offer(line(Level.BASKET).append(" skus=\"").append(skus)
+                .append("\" price=").append(price).append(" nanos=").append(nanos).toString());
+    }
+
+    void counts(int[] counts, SkuIndex index) {
+        if (!isEnabled(Level.DETAIL)) return;
+        final StringBuilder line = line(Level.DETAIL).append(" counts=");
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0) line.append(counts[ordinal]).append(index.skuAt(ordinal));
+        }
+        buffer.offer(line.toString());
+    }
+
+    public long getDropped() {
+        return buffer.getDropped();
+    }
+
+    private static StringBuilder line(Level level) {
+        return new StringBuilder(96).append("ts=").append(System.currentTimeMillis())
+                .append(" level=").append(level.name());
+    }
+
+    private void drain() {
+        try {
+            while (!closed || !buffer.isEmpty()) {
+                final String line = buffer.poll();
+                if (line == null) {
+                    out.flush();
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                out.write(line);
+                out.write('\n');
+            }
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Checkout trace stopped: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (active == this) uninstall();
+        closed = true;
+        try {
+            drainer.join();
+            out.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
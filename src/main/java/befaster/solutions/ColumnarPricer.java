@@ -0,0 +1,159 @@
+package befaster.solutions;
+
+import java.util.Arrays;
+
+/**
+ * Prices many baskets at once from a count matrix: one {@code int[]} column per SKU ordinal,
+ * one row per basket.
+ *
+ * The rules of a {@link PricingEngine} are applied one column at a time over blocks of rows,
+ * as branch-free loops over primitive arrays that C2 can unroll and vectorize. Results match
+ * {@link PricingEngine#price(int[])} row for row.
+ */
+public final class ColumnarPricer {
+    private static final int BLOCK = 1024;
+
+    private final PricingEngine engine;
+    private final int skus;
+
+    private ColumnarPricer(PricingEngine engine) {
+        this.engine = engine;
+        this.skus = engine.unitPrices.length;
+    }
+
+    public static ColumnarPricer of(Catalog catalog) {
+        return new ColumnarPricer(catalog.getEngine());
+    }
+
+    /**
+     * @param columns counts indexed by {@link SkuIndex} ordinal then basket; a null column means
+     *                no basket has that SKU
+     */
+    public long[] price(int[][] columns, int baskets) {
+        final long[] totals = new long[baskets];
+        price(columns, 0, baskets, totals);
+        return totals;
+    }
+
+    /**
+     * Adds the price of baskets {@code [from, to)} into {@code totals}.
+     */
+    public void price(int[][] columns, int from, int to, long[] totals) {
+        if (columns.length != skus) throw new IllegalArgumentException("Expected " + skus + " columns, got " + columns.length);
+        final int[] remaining = new int[BLOCK];
+        final int[] bundles = new int[BLOCK];
+        final int[][] groupRemaining = new int[maxGroupSize()][BLOCK];
+        for (int start = from; start < to; start += BLOCK) {
+            final int rows = Math.min(BLOCK, to - start);
+            for (int ordinal = 0; ordinal < skus; ordinal++) {
+                if (columns[ordinal] == null || engine.groupOf[ordinal] >= 0) continue;
+                afterFreeItems(columns, ordinal, start, rows, remaining);
+                tiersAndUnits(ordinal, remaining, rows, totals, start);
+            }
+            for (int group = 0; group < engine.groupMembers.length; group++) {
+                priceGroup(columns, group, start, rows, groupRemaining, bundles, totals);
+            }
+        }
+    }
+
+    private void priceGroup(int[][] columns, int group, int start, int rows, int[][] remaining, int[] toBundle, long[] totals) {
+        final int[] members = engine.groupMembers[group];
+        final int quantity = engine.groupQuantities[group];
+        final long price = engine.groupPrices[group];
+        for (int m = 0; m < members.length; m++) {
+            afterFreeItems(columns, members[m], start, rows, remaining[m]);
+        }
+        for (int row = 0; row < rows; row++) {
+            final int bundles = bundlesWorthTaking(members, quantity, price, remaining, row);
+            totals[start + row] += bundles * price;
+            toBundle[row] = bundles * quantity;
+        }
+        for (int m = 0; m < members.length; m++) {
+            final int[] memberRemaining = remaining[m];
+            for (int row = 0; row < rows; row++) {
+                final int bundled = Math.min(toBundle[row], memberRemaining[row]);
+                toBundle[row] -= bundled;
+                memberRemaining[row] -= bundled;
+            }
+            tiersAndUnits(members[m], memberRemaining, rows, totals, start);
+        }
+    }
+
+    /**
+     * As {@link PricingEngine}: most expensive members first, stopping at the first bundle that
+     * would not save anything.
+     */
+    private int bundlesWorthTaking(int[] members, int quantity, long price, int[][] remaining, int row) {
+        int bundles = 0;
+        int filled = 0;
+        long filledCost = 0;
+        for (int m = 0; m < members.length; m++) {
+            final int unitPrice = engine.unitPrices[members[m]];
+            int count = remaining[m][row];
+            while (count > 0) {
+                if (filled == 0 && count >= quantity) {
+                    if ((long) quantity * unitPrice <= price) return bundles;
+                    bundles += count / quantity;
+                    count %= quantity;
+                    continue;
+                }
+                final int taken = Math.min(quantity - filled, count);
+                filled += taken;
+                filledCost += (long) taken * unitPrice;
+                count -= taken;
+                if (filled == quantity) {
+                    if (filledCost <= price) return bundles;
+                    bundles++;
+                    filled = 0;
+                    filledCost = 0;
+                }
+            }
+        }
+        return bundles;
+    }
+
+    private void afterFreeItems(int[][] columns, int ordinal, int start, int rows, int[] remaining) {
+        final int[] counts = columns[ordinal];
+        if (counts == null) {
+            Arrays.fill(remaining, 0, rows, 0);
+            return;
+        }
+        System.arraycopy(counts, start, remaining, 0, rows);
+        final int[] triggers = engine.freeTriggers[ordinal];
+        final int[] triggerQuantities = engine.freeTriggerQuantities[ordinal];
+        for (int i = 0; i < triggers.length; i++) {
+            final int[] triggerCounts = columns[triggers[i]];
+            if (triggerCounts == null) continue;
+            final int quantity = triggerQuantities[i];
+            for (int row = 0; row < rows; row++) {
+                remaining[row] -= Math.min(remaining[row], triggerCounts[start + row] / quantity);
+            }
+        }
+    }
+
+    private void tiersAndUnits(int ordinal, int[] remaining, int rows, long[] totals, int start) {
+        final int[] quantities = engine.tierQuantities[ordinal];
+        final int[] tierPrices = engine.tierPrices[ordinal];
+        for (int i = 0; i < quantities.length; i++) {
+            final int quantity = quantities[i];
+            final long price = tierPrices[i];
+            for (int row = 0; row < rows; row++) {
+                final int applications = remaining[row] / quantity;
+                totals[start + row] += applications * price;
+                remaining[row] -= applications * quantity;
+            }
+        }
+        final long unitPrice = engine.unitPrices[ordinal];
+        for (int row = 0; row < rows; row++) {
+            totals[start + row] += remaining[row] * unitPrice;
+        }
+    }
+
+    private int maxGroupSize() {
+        int max = 0;
+        for (int[] members : engine.groupMembers) {
+            max = Math.max(max, members.length);
+        }
+        return max;
+    }
+}
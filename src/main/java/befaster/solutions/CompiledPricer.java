@@ -0,0 +1,146 @@
+package befaster.solutions;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * A catalog's pricing rules composed into a single {@link MethodHandle} {@code (int[] counts) -> int}.
+ *
+ * Every SKU's rules become a small handle with its ordinal, triggers, tiers and unit price bound
+ * in as constants, and those handles are summed in a balanced tree. There are no offer objects,
+ * no boxed quantities and no virtual calls on the way.
+ *
+ * The current catalog's pricer is also installed in a {@link MutableCallSite} that
+ * {@link #price(int[])} goes through. The JIT therefore sees a constant target and can inline the
+ * whole tree. The call site guards on the pricer's identity, so a thread still pricing against a
+ * replaced catalog falls back to that catalog's own handle.
+ */
+final class CompiledPricer {
+    private static final MethodHandle COUNT;
+    private static final MethodHandle AFTER_FREE_ITEMS;
+    private static final MethodHandle UNITS;
+    private static final MethodHandle TIERS_AND_UNITS;
+    private static final MethodHandle UNIT;
+    private static final MethodHandle ADD;
+    private static final MethodHandle SAME;
+    private static final MethodHandle OWN_HANDLE;
+    private static final MutableCallSite CURRENT;
+    private static final MethodHandle CURRENT_PRICE;
+
+    static {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            COUNT = lookup.findStatic(CompiledPricer.class, "count", methodType(int.class, int.class, int[].class));
+            AFTER_FREE_ITEMS = lookup.findStatic(CompiledPricer.class, "afterFreeItems",
+                    methodType(int.class, int.class, int[].class, int[].class, int[].class));
+            UNITS = lookup.findStatic(CompiledPricer.class, "units", methodType(int.class, int.class, int.class));
+            TIERS_AND_UNITS = lookup.findStatic(CompiledPricer.class, "tiersAndUnits",
+                    methodType(int.class, int[].class, int[].class, int.class, int.class));
+            UNIT = lookup.findVirtual(PricingEngine.class, "priceUnit", methodType(int.class, int[].class, int.class));
+            ADD = lookup.findStatic(Integer.class, "sum", methodType(int.class, int.class, int.class));
+            SAME = lookup.findStatic(CompiledPricer.class, "same", methodType(boolean.class, CompiledPricer.class, CompiledPricer.class));
+            OWN_HANDLE = lookup.findStatic(CompiledPricer.class, "priceWithOwnHandle", methodType(int.class, CompiledPricer.class, int[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        CURRENT = new MutableCallSite(OWN_HANDLE);
+        CURRENT_PRICE = CURRENT.dynamicInvoker();
+    }
+
+    private final MethodHandle price;
+
+    private CompiledPricer(MethodHandle price) {
+        this.price = price;
+    }
+
+    static CompiledPricer compile(PricingEngine engine) {
+        final List<MethodHandle> parts = new ArrayList<>();
+        final int skus = engine.unitPrices.length;
+        for (int ordinal = 0; ordinal < skus; ordinal++) {
+            if (engine.unitOf(ordinal) != ordinal) continue;
+            final MethodHandle remaining = engine.freeTriggers[ordinal].length == 0
+                    ? MethodHandles.insertArguments(COUNT, 0, ordinal)
+                    : MethodHandles.insertArguments(AFTER_FREE_ITEMS, 0, ordinal, engine.freeTriggers[ordinal], engine.freeTriggerQuantities[ordinal]);
+            final MethodHandle price = engine.tierQuantities[ordinal].length == 0
+                    ? MethodHandles.insertArguments(UNITS, 0, engine.unitPrices[ordinal])
+                    : MethodHandles.insertArguments(TIERS_AND_UNITS, 0, engine.tierQuantities[ordinal], engine.tierPrices[ordinal], engine.unitPrices[ordinal]);
+            parts.add(MethodHandles.filterReturnValue(remaining, price));
+        }
+        for (int unit = skus; unit < engine.units(); unit++) {
+            // "any N of" groups share items between members, so they keep the engine's code
+            parts.add(MethodHandles.insertArguments(MethodHandles.insertArguments(UNIT, 2, unit), 0, engine));
+        }
+        return new CompiledPricer(sum(parts, 0, parts.size()));
+    }
+
+    int price(int[] counts) {
+        try {
+            return (int) CURRENT_PRICE.invokeExact(this, counts);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Points the shared call site at this pricer, for the catalog just installed.
+     */
+    void makeCurrent() {
+        final MethodHandle mine = MethodHandles.dropArguments(price, 0, CompiledPricer.class);
+        CURRENT.setTarget(MethodHandles.guardWithTest(MethodHandles.insertArguments(SAME, 0, this), mine, OWN_HANDLE));
+    }
+
+    private static MethodHandle sum(List<MethodHandle> parts, int from, int to) {
+        if (to - from == 0) {
+            return MethodHandles.dropArguments(MethodHandles.constant(int.class, 0), 0, int[].class);
+        }
+        if (to - from == 1) {
+            return parts.get(from);
+        }
+        final int middle = (from + to) >>> 1;
+        final MethodHandle both = MethodHandles.filterArguments(ADD, 0, sum(parts, from, middle), sum(parts, middle, to));
+        return MethodHandles.permuteArguments(both, methodType(int.class, int[].class), 0, 0);
+    }
+
+    private static boolean same(CompiledPricer expected, CompiledPricer actual) {
+        return expected == actual;
+    }
+
+    private static int priceWithOwnHandle(CompiledPricer pricer, int[] counts) throws Throwable {
+        return (int) pricer.price.invokeExact(counts);
+    }
+
+    private static int count(int ordinal, int[] counts) {
+        return counts[ordinal];
+    }
+
+    private static int afterFreeItems(int ordinal, int[] triggers, int[] triggerQuantities, int[] counts) {
+        final int count = counts[ordinal];
+        if (count == 0) return 0;
+        long free = 0;
+        for (int i = 0; i < triggers.length; i++) {
+            free += counts[triggers[i]] / triggerQuantities[i];
+        }
+        return count - (int) Math.min(count, free);
+    }
+
+    private static int units(int unitPrice, int remaining) {
+        return remaining * unitPrice;
+    }
+
+    private static int tiersAndUnits(int[] quantities, int[] tierPrices, int unitPrice, int remaining) {
+        int total = 0;
+        for (int i = 0; i < quantities.length; i++) {
+            final int applications = remaining / quantities[i];
+            total += applications * tierPrices[i];
+            remaining -= applications * quantities[i];
+        }
+        return total + remaining * unitPrice;
+    }
+}
@@ -0,0 +1,47 @@
+package befaster.solutions;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hashing of basket keys onto nodes. Each node takes {@code virtualNodes} points on
+ * the ring, so adding or removing a node moves only about 1/n of the keys.
+ */
+final class HashRing<N> {
+    private static final HashFunction HASH = Hashing.murmur3_32();
+
+    private final TreeMap<Integer, N> ring = new TreeMap<>();
+
+    HashRing(Collection<N> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) throw new IllegalArgumentException("A ring needs at least one node");
+        for (N node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(HASH.hashString(node + "#" + i, StandardCharsets.UTF_8).asInt(), node);
+            }
+        }
+    }
+
+    N ownerOf(int keyHash) {
+        final Map.Entry<Integer, N> owner = ring.ceilingEntry(keyHash);
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * Hashes the normalized basket: its non-zero (SKU, count) pairs, so "ABA" and "2A,B" agree.
+     */
+    static int hash(SkuIndex index, int[] counts) {
+        final Hasher hasher = HASH.newHasher();
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0) {
+                hasher.putString(index.skuAt(ordinal), StandardCharsets.UTF_8).putInt(counts[ordinal]);
+            }
+        }
+        return hasher.hash().asInt();
+    }
+}
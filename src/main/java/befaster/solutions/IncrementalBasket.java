@@ -0,0 +1,114 @@
+package befaster.solutions;
+
+import java.util.Arrays;
+
+/**
+ * A live cart that keeps its total up to date as items are scanned or removed.
+ *
+ * The total is kept as a sum of per-unit prices (see {@link PricingEngine#units()}). A change to
+ * one SKU only re-prices its own unit and the units it makes free, e.g. adding E re-prices E and B.
+ * The cart is pinned to the catalog it was opened with, and is not thread-safe.
+ */
+public final class IncrementalBasket {
+    private final PricingEngine engine;
+    private final SkuIndex index;
+    private final int[] counts;
+    private final int[] unitTotals;
+    private int total;
+
+    public IncrementalBasket() {
+        this(Catalog.current());
+    }
+
+    public IncrementalBasket(Catalog catalog) {
+        this.engine = catalog.getEngine();
+        this.index = catalog.getIndex();
+        this.counts = new int[index.size()];
+        this.unitTotals = new int[engine.units()];
+    }
+
+    /**
+     * @return the new total
+     */
+    public int add(String sku, int quantity) {
+        if (quantity < 0) throw new IllegalArgumentException("Negative quantity: " + quantity);
+        final int ordinal = ordinalOf(sku);
+        if (counts[ordinal] > Integer.MAX_VALUE - quantity) throw new IllegalArgumentException("Quantity too large");
+        counts[ordinal] += quantity;
+        reprice(ordinal);
+        return total;
+    }
+
+    /**
+     * @return the new total
+     */
+    public int remove(String sku, int quantity) {
+        if (quantity < 0) throw new IllegalArgumentException("Negative quantity: " + quantity);
+        final int ordinal = ordinalOf(sku);
+        if (counts[ordinal] < quantity) {
+            throw new IllegalArgumentException("Cannot remove " + quantity + " " + sku + ", basket has " + counts[ordinal]);
+        }
+        counts[ordinal] -= quantity;
+        reprice(ordinal);
+        return total;
+    }
+
+    public int currentTotal() {
+        return total;
+    }
+
+    public int count(String sku) {
+        return counts[ordinalOf(sku)];
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(this, counts.clone(), unitTotals.clone(), total);
+    }
+
+    /**
+     * Puts the cart back the way it was when {@code snapshot} was taken, e.g. to undo a scan.
+     */
+    public void restore(Snapshot snapshot) {
+        if (snapshot.basket != this) throw new IllegalArgumentException("Snapshot of another basket");
+        System.arraycopy(snapshot.counts, 0, counts, 0, counts.length);
+        System.arraycopy(snapshot.unitTotals, 0, unitTotals, 0, unitTotals.length);
+        total = snapshot.total;
+    }
+
+    private void reprice(int ordinal) {
+        for (int unit : engine.unitsAffectedBy(ordinal)) {
+            final int price = engine.priceUnit(counts, unit);
+            total += price - unitTotals[unit];
+            unitTotals[unit] = price;
+        }
+    }
+
+    private int ordinalOf(String sku) {
+        final int ordinal = index.ordinalOf(sku);
+        if (ordinal == SkuIndex.NOT_A_SKU) throw new IllegalArgumentException("Unknown SKU: " + sku);
+        return ordinal;
+    }
+
+    @Override
+    public String toString() {
+        return "IncrementalBasket{counts=" + Arrays.toString(counts) + ", total=" + total + '}';
+    }
+
+    public static final class Snapshot {
+        private final IncrementalBasket basket;
+        private final int[] counts;
+        private final int[] unitTotals;
+        private final int total;
+
+        private Snapshot(IncrementalBasket basket, int[] counts, int[] unitTotals, int total) {
+            this.basket = basket;
+            this.counts = counts;
+            this.unitTotals = unitTotals;
+            this.total = total;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+}
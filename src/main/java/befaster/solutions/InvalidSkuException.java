@@ -0,0 +1,16 @@
+package befaster.solutions;
+
+public class InvalidSkuException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+    private final long position;
+
+    InvalidSkuException(String message, long position) {
+        super(message + " at position " + position);
+        this.position = position;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+}
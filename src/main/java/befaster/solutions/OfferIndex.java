@@ -0,0 +1,130 @@
+package befaster.solutions;
+
+import befaster.solutions.Checkout.AnyOf;
+import befaster.solutions.Checkout.FreeProduct;
+import befaster.solutions.Checkout.GroupMatch;
+import befaster.solutions.Checkout.Offer;
+import befaster.solutions.Checkout.ReducedPrice;
+
+import java.util.List;
+
+/**
+ * Bitsets that tell which {@link Offer}s can apply to a basket without asking every offer.
+ *
+ * Every SKU's {@link SkuIndex} ordinal is its bit. Each offer has a "required" set, the SKUs
+ * that can trigger it, and an "affected" set, the SKUs its benefit changes. Each SKU also gets the
+ * set of offers it can trigger. An offer is a candidate only if its triggering SKU is in the basket
+ * and at least one affected SKU is too. Sets are {@code long[]} words, so catalogs of more than 64
+ * SKUs or offers work the same way.
+ */
+final class OfferIndex {
+    private final SkuIndex index;
+    private final List<Offer> offers;
+    private final long[][] required;
+    private final long[][] affected;
+    private final long[][] offersBySku;
+
+    private OfferIndex(SkuIndex index, List<Offer> offers) {
+        this.index = index;
+        this.offers = offers;
+        this.required = new long[offers.size()][];
+        this.affected = new long[offers.size()][];
+        this.offersBySku = new long[index.size()][words(offers.size())];
+        for (int position = 0; position < offers.size(); position++) {
+            final Offer offer = offers.get(position);
+            required[position] = required(offer);
+            affected[position] = affected(offer);
+            for (int ordinal = nextSetBit(required[position], 0); ordinal >= 0; ordinal = nextSetBit(required[position], ordinal + 1)) {
+                set(offersBySku[ordinal], position);
+            }
+        }
+    }
+
+    static OfferIndex compile(SkuIndex index, List<Offer> offers) {
+        return new OfferIndex(index, offers);
+    }
+
+    /**
+     * @return the SKUs with a non-zero count
+     */
+    long[] present(int[] counts) {
+        final long[] present = new long[words(counts.length)];
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0) set(present, ordinal);
+        }
+        return present;
+    }
+
+    /**
+     * Adds, in catalog order, each offer {@code ordinal} triggers, once per time it matches
+     * {@code count} items. Offers whose benefit touches nothing in {@code present} are skipped.
+     */
+    void addMatches(int ordinal, int count, long[] present, List<Offer> matches) {
+        final long[] candidates = offersBySku[ordinal];
+        final String sku = index.skuAt(ordinal);
+        for (int position = nextSetBit(candidates, 0); position >= 0; position = nextSetBit(candidates, position + 1)) {
+            if (!intersects(affected[position], present)) continue;
+            final Offer offer = offers.get(position);
+            for (int n = offer.nMatches(sku, count); n > 0; n--) {
+                matches.add(offer);
+            }
+        }
+    }
+
+    private long[] required(Offer offer) {
+        final long[] skus = new long[words(index.size())];
+        if (offer.productMatch instanceof GroupMatch) {
+            ((GroupMatch) offer.productMatch).productGroup.forEach(sku -> setSku(skus, sku));
+        } else {
+            setSku(skus, offer.productMatch.product);
+        }
+        return skus;
+    }
+
+    private long[] affected(Offer offer) {
+        final long[] skus = new long[words(index.size())];
+        if (offer.benefit instanceof ReducedPrice) {
+            setSku(skus, ((ReducedPrice) offer.benefit).product);
+        } else if (offer.benefit instanceof FreeProduct) {
+            setSku(skus, ((FreeProduct) offer.benefit).product);
+        } else if (offer.benefit instanceof AnyOf) {
+            ((AnyOf) offer.benefit).productGroup.forEach(sku -> setSku(skus, sku));
+        } else {
+            for (int ordinal = 0; ordinal < index.size(); ordinal++) {
+                set(skus, ordinal);
+            }
+        }
+        return skus;
+    }
+
+    private void setSku(long[] skus, String sku) {
+        final int ordinal = index.ordinalOf(sku);
+        if (ordinal != SkuIndex.NOT_A_SKU) set(skus, ordinal);
+    }
+
+    static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    static void set(long[] bits, int bit) {
+        bits[bit >>> 6] |= 1L << bit;
+    }
+
+    static boolean intersects(long[] a, long[] b) {
+        for (int word = 0; word < a.length; word++) {
+            if ((a[word] & b[word]) != 0) return true;
+        }
+        return false;
+    }
+
+    static int nextSetBit(long[] bits, int from) {
+        int word = from >>> 6;
+        if (word >= bits.length) return -1;
+        long remaining = bits[word] & (-1L << from);
+        while (true) {
+            if (remaining != 0) return (word << 6) + Long.numberOfTrailingZeros(remaining);
+            if (++word == bits.length) return -1;
+            remaining = bits[word];
+        }
+    }
+}
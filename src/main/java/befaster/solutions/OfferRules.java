@@ -0,0 +1,61 @@
+package befaster.solutions;
+
+import befaster.solutions.Checkout.AnyOf;
+import befaster.solutions.Checkout.FreeProduct;
+import befaster.solutions.Checkout.GroupMatch;
+import befaster.solutions.Checkout.Offer;
+import befaster.solutions.Checkout.ProductMatch;
+import befaster.solutions.Checkout.ReducedPrice;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Offers written the way they appear on the shop floor:
+ * <pre>
+ * 3A for 130
+ * 2E get one B free
+ * any 3 of STXYZ for 45
+ * </pre>
+ * "3U get one U free" means a fourth U is free, so it matches four U: the same offer as
+ * {@code free,U,4,U} in the catalog's rule syntax.
+ */
+public final class OfferRules {
+    private static final Pattern MULTIBUY = Pattern.compile("(\\d+)\\s*([^\\d\\s,])\\s+for\\s+(\\d+)");
+    private static final Pattern FREE = Pattern.compile("(\\d+)\\s*([^\\d\\s,])\\s+get\\s+one\\s+([^\\d\\s,])\\s+free");
+    private static final Pattern ANY_OF = Pattern.compile("any\\s+(\\d+)\\s+of\\s+([^\\d\\s,]+)\\s+for\\s+(\\d+)");
+
+    private OfferRules() {
+    }
+
+    /**
+     * @param prices unit prices, used to fill "any N of" bundles with the most expensive items first
+     */
+    public static Offer parse(String rule, Map<String, Integer> prices) {
+        final String text = rule.trim();
+        Matcher matcher = MULTIBUY.matcher(text);
+        if (matcher.matches()) {
+            final int quantity = Catalog.quantity(matcher.group(1));
+            final String product = matcher.group(2);
+            Catalog.expectPrices(prices, product);
+            return Offer.of(ProductMatch.of(product, quantity), ReducedPrice.of(product, quantity, Catalog.amount(matcher.group(3))));
+        }
+        matcher = FREE.matcher(text);
+        if (matcher.matches()) {
+            final String trigger = matcher.group(2);
+            final String free = matcher.group(3);
+            Catalog.expectPrices(prices, trigger, free);
+            final int quantity = Catalog.quantity(matcher.group(1));
+            return Offer.of(ProductMatch.of(trigger, trigger.equals(free) ? quantity + 1 : quantity), FreeProduct.of(free));
+        }
+        matcher = ANY_OF.matcher(text);
+        if (matcher.matches()) {
+            final int quantity = Catalog.quantity(matcher.group(1));
+            final String group = matcher.group(2);
+            Catalog.expectPrices(prices, group.split(""));
+            return Offer.of(GroupMatch.of(group, quantity), AnyOf.of(group, quantity, Catalog.amount(matcher.group(3)), prices));
+        }
+        throw new IllegalArgumentException("Not an offer: \"" + rule + "\"");
+    }
+}
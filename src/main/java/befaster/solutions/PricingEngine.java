@@ -0,0 +1,274 @@
+package befaster.solutions;
+
+import befaster.solutions.Checkout.AnyOf;
+import befaster.solutions.Checkout.FreeProduct;
+import befaster.solutions.Checkout.Offer;
+import befaster.solutions.Checkout.ReducedPrice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prices and offers compiled once into per-SKU arrays, so a basket is priced with arithmetic
+ * instead of by expanding and replaying {@link Offer}s.
+ *
+ * For every SKU, free-item rules are settled first (using the original trigger counts, as the
+ * greedy {@link Offer} pipeline does), then "any N of" group bundles, then multi-buy tiers from
+ * the largest quantity down, then the unit price. Pricing a basket is O(SKUs + rules) whatever
+ * the item counts are.
+ */
+public final class PricingEngine {
+    private static final int[] NONE = new int[0];
+    private static final int NO_GROUP = -1;
+
+    private final SkuIndex index;
+    final int[] unitPrices;
+    final int[][] tierQuantities;
+    final int[][] tierPrices;
+    final int[][] freeTriggers;
+    final int[][] freeTriggerQuantities;
+    final int[] groupOf;
+    final int[][] groupMembers;
+    final int[] groupQuantities;
+    final int[] groupPrices;
+    private final int[][] affectedUnits;
+
+    private PricingEngine(SkuIndex index, int[] unitPrices, int[][] tierQuantities, int[][] tierPrices,
+                          int[][] freeTriggers, int[][] freeTriggerQuantities,
+                          int[] groupOf, List<int[]> groups) {
+        this.index = index;
+        this.unitPrices = unitPrices;
+        this.tierQuantities = tierQuantities;
+        this.tierPrices = tierPrices;
+        this.freeTriggers = freeTriggers;
+        this.freeTriggerQuantities = freeTriggerQuantities;
+        this.groupOf = groupOf;
+        this.groupMembers = new int[groups.size()][];
+        this.groupQuantities = new int[groups.size()];
+        this.groupPrices = new int[groups.size()];
+        for (int group = 0; group < groups.size(); group++) {
+            final int[] rule = groups.get(group);
+            groupQuantities[group] = rule[0];
+            groupPrices[group] = rule[1];
+            groupMembers[group] = Arrays.copyOfRange(rule, 2, rule.length);
+        }
+        this.affectedUnits = new int[unitPrices.length][];
+        for (int ordinal = 0; ordinal < unitPrices.length; ordinal++) {
+            final Set<Integer> units = new LinkedHashSet<>();
+            units.add(unitOf(ordinal));
+            for (int target = 0; target < unitPrices.length; target++) {
+                for (int trigger : freeTriggers[target]) {
+                    if (trigger == ordinal) units.add(unitOf(target));
+                }
+            }
+            affectedUnits[ordinal] = units.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public static PricingEngine compile(SkuIndex index, Map<String, Integer> prices, List<Offer> offers) {
+        final int size = index.size();
+        final int[] unitPrices = new int[size];
+        prices.forEach((sku, price) -> unitPrices[ordinal(index, sku)] = price);
+
+        final List<List<int[]>> tiers = emptyLists(size);
+        final List<List<int[]>> frees = emptyLists(size);
+        final List<int[]> groups = new ArrayList<>();
+        final int[] groupOf = new int[size];
+        Arrays.fill(groupOf, NO_GROUP);
+        for (Offer offer : offers) {
+            if (offer.benefit instanceof AnyOf) {
+                final AnyOf anyOf = (AnyOf) offer.benefit;
+                final int[] rule = new int[anyOf.productsByPrice.length + 2];
+                rule[0] = anyOf.quantity;
+                rule[1] = anyOf.totalPrice;
+                for (int i = 0; i < anyOf.productsByPrice.length; i++) {
+                    final int member = ordinal(index, anyOf.productsByPrice[i]);
+                    if (groupOf[member] != NO_GROUP) throw new IllegalArgumentException("SKU in more than one group: " + anyOf.productsByPrice[i]);
+                    groupOf[member] = groups.size();
+                    rule[i + 2] = member;
+                }
+                groups.add(rule);
+                continue;
+            }
+            final int trigger = ordinal(index, offer.productMatch.product);
+            final int quantity = offer.productMatch.quantity;
+            if (offer.benefit instanceof ReducedPrice) {
+                final ReducedPrice reducedPrice = (ReducedPrice) offer.benefit;
+                if (ordinal(index, reducedPrice.product) != trigger || reducedPrice.quantity != quantity) {
+                    throw new IllegalArgumentException("Reduced price must match its own product: " + reducedPrice.product);
+                }
+                tiers.get(trigger).add(new int[]{quantity, reducedPrice.totalPrice});
+            } else if (offer.benefit instanceof FreeProduct) {
+                final int target = ordinal(index, ((FreeProduct) offer.benefit).product);
+                frees.get(target).add(new int[]{trigger, quantity});
+            } else {
+                throw new IllegalArgumentException("Unsupported benefit: " + offer.benefit.getClass().getSimpleName());
+            }
+        }
+
+        final int[][] tierQuantities = new int[size][];
+        final int[][] tierPrices = new int[size][];
+        final int[][] freeTriggers = new int[size][];
+        final int[][] freeTriggerQuantities = new int[size][];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            final List<int[]> skuTiers = tiers.get(ordinal);
+            skuTiers.sort(Comparator.comparingInt((int[] tier) -> tier[0]).reversed());
+            tierQuantities[ordinal] = column(skuTiers, 0);
+            tierPrices[ordinal] = column(skuTiers, 1);
+            freeTriggers[ordinal] = column(frees.get(ordinal), 0);
+            freeTriggerQuantities[ordinal] = column(frees.get(ordinal), 1);
+        }
+        return new PricingEngine(index, unitPrices, tierQuantities, tierPrices, freeTriggers, freeTriggerQuantities, groupOf, groups);
+    }
+
+    /**
+     * @param counts item counts indexed by {@link SkuIndex} ordinal; left untouched
+     */
+    public int price(int[] counts) {
+        int total = 0;
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] == 0 || groupOf[ordinal] != NO_GROUP) continue;
+            total += tiersAndUnits(ordinal, afterFreeItems(counts, ordinal));
+        }
+        for (int group = 0; group < groupMembers.length; group++) {
+            total += priceGroup(counts, group);
+        }
+        return total;
+    }
+
+    /**
+     * The number of independently priced units: one per ungrouped SKU (members of a group price
+     * as zero on their own), then one per group.
+     */
+    int units() {
+        return unitPrices.length + groupMembers.length;
+    }
+
+    int unitOf(int ordinal) {
+        return groupOf[ordinal] == NO_GROUP ? ordinal : unitPrices.length + groupOf[ordinal];
+    }
+
+    /**
+     * The units whose price can change when the count of {@code ordinal} changes: its own, and
+     * those of every SKU it makes free.
+     */
+    int[] unitsAffectedBy(int ordinal) {
+        return affectedUnits[ordinal];
+    }
+
+    /**
+     * Summed over {@link #units()}, equals {@link #price(int[])}.
+     */
+    int priceUnit(int[] counts, int unit) {
+        if (unit >= unitPrices.length) {
+            return priceGroup(counts, unit - unitPrices.length);
+        }
+        if (counts[unit] == 0 || groupOf[unit] != NO_GROUP) return 0;
+        return tiersAndUnits(unit, afterFreeItems(counts, unit));
+    }
+
+    private int priceGroup(int[] counts, int group) {
+        final int[] members = groupMembers[group];
+        int toBundle = bundlesWorthTaking(counts, group) * groupQuantities[group];
+        int total = toBundle / groupQuantities[group] * groupPrices[group];
+        for (int member : members) {
+            int remaining = afterFreeItems(counts, member);
+            final int bundled = Math.min(toBundle, remaining);
+            toBundle -= bundled;
+            remaining -= bundled;
+            total += tiersAndUnits(member, remaining);
+        }
+        return total;
+    }
+
+    /**
+     * Bundles are filled from the most expensive members down, and only while a bundle's items
+     * would cost more than the bundle price on their own.
+     */
+    private int bundlesWorthTaking(int[] counts, int group) {
+        final int[] members = groupMembers[group];
+        final int quantity = groupQuantities[group];
+        final int price = groupPrices[group];
+        int bundles = 0;
+        int filled = 0;
+        int filledCost = 0;
+        for (int member : members) {
+            int count = afterFreeItems(counts, member);
+            while (count > 0) {
+                if (filled == 0 && count >= quantity) {
+                    if (quantity * unitPrices[member] <= price) return bundles;
+                    bundles += count / quantity;
+                    count %= quantity;
+                    continue;
+                }
+                final int taken = Math.min(quantity - filled, count);
+                filled += taken;
+                filledCost += taken * unitPrices[member];
+                count -= taken;
+                if (filled == quantity) {
+                    if (filledCost <= price) return bundles;
+                    bundles++;
+                    filled = 0;
+                    filledCost = 0;
+                }
+            }
+        }
+        return bundles;
+    }
+
+    private int afterFreeItems(int[] counts, int ordinal) {
+        final int count = counts[ordinal];
+        final int[] triggers = freeTriggers[ordinal];
+        if (count == 0 || triggers.length == 0) return count;
+        final int[] triggerQuantities = freeTriggerQuantities[ordinal];
+        long free = 0;
+        for (int i = 0; i < triggers.length; i++) {
+            free += counts[triggers[i]] / triggerQuantities[i];
+        }
+        return count - (int) Math.min(count, free);
+    }
+
+    private int tiersAndUnits(int ordinal, int remaining) {
+        final int[] quantities = tierQuantities[ordinal];
+        final int[] tierTotals = tierPrices[ordinal];
+        int total = 0;
+        for (int i = 0; i < quantities.length; i++) {
+            final int applications = remaining / quantities[i];
+            total += applications * tierTotals[i];
+            remaining -= applications * quantities[i];
+        }
+        return total + remaining * unitPrices[ordinal];
+    }
+
+    public SkuIndex getIndex() {
+        return index;
+    }
+
+    private static int ordinal(SkuIndex index, String sku) {
+        final int ordinal = index.ordinalOf(sku);
+        if (ordinal == SkuIndex.NOT_A_SKU) throw new IllegalArgumentException("Unknown SKU: " + sku);
+        return ordinal;
+    }
+
+    private static List<List<int[]>> emptyLists(int size) {
+        final List<List<int[]>> lists = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            lists.add(new ArrayList<>());
+        }
+        return lists;
+    }
+
+    private static int[] column(List<int[]> rows, int column) {
+        if (rows.isEmpty()) return NONE;
+        final int[] values = new int[rows.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rows.get(i)[column];
+        }
+        return values;
+    }
+}
@@ -0,0 +1,8 @@
+package befaster.solutions;
+
+public enum PricingMode {
+    /** Offers applied in priority order by the compiled {@link PricingEngine}. */
+    GREEDY,
+    /** Cheapest combination of offers found by {@link PricingSolver}, within its budget. */
+    OPTIMAL
+}
@@ -0,0 +1,437 @@
+package befaster.solutions;
+
+import com.google.common.primitives.UnsignedBytes;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One member of a pricing tier spread over several JVMs.
+ *
+ * Basket prices are cached only on the node that owns the basket, picked by consistent hashing
+ * of the normalized basket. Other nodes forward misses to it over a small binary protocol on
+ * plain sockets, sending the basket in {@link BasketCodec} form. The catalog version travels with
+ * every forwarded basket, and nodes on different versions never price for each other:
+ * <ul>
+ *     <li>an owner behind the caller is sent the caller's catalog, then the call is retried;</li>
+ *     <li>a caller behind the owner fetches the owner's catalog and prices locally.</li>
+ * </ul>
+ * {@link #publish(Catalog)} pushes a new catalog to every member, and keeps retrying members it
+ * could not reach until they have it or a newer catalog replaces it. An unreachable owner costs a
+ * local, uncached price rather than an error.
+ *
+ * Versions are minted by the cluster rather than by each JVM's own counter, so two members can
+ * never publish different catalogs under one version. A version is
+ * {@code [sequence:31][node:16][rules hash:16]}: the sequence is one past the highest any member has
+ * seen, and the node is this member's position among the members ordered by address bytes, then
+ * port, so it does not depend on how a host was spelled. The hash of the rules
+ * tells apart catalogs from members misconfigured with the same position. A catalog arriving with
+ * the installed version but different rules is refused.
+ */
+public final class PricingNode implements AutoCloseable {
+    private static final byte PRICE = 1;
+    private static final byte REPLICATE = 2;
+    private static final byte FETCH_CATALOG = 3;
+    private static final byte OK = 0;
+    private static final byte STALE = 1;
+    private static final byte INVALID = 2;
+    private static final int VIRTUAL_NODES = 64;
+    private static final int TIMEOUT_MILLIS = 2000;
+    private static final int ATTEMPTS = 3;
+    private static final int SEQUENCE_SHIFT = 32;
+    private static final int NODE_SHIFT = 16;
+    private static final int MAX_NODE_ID = 0xFFFF;
+    private static final long FIRST_RETRY_MILLIS = 100;
+    private static final long MAX_RETRY_MILLIS = 5000;
+    private static final Comparator<InetSocketAddress> BY_ADDRESS = Comparator
+            .comparing((InetSocketAddress member) -> member.getAddress().getAddress(), UnsignedBytes.lexicographicalComparator())
+            .thenComparingInt(InetSocketAddress::getPort);
+
+    private final ServerSocket serverSocket;
+    private final InetSocketAddress self;
+    private final ExecutorService handlers;
+    private final BasketPriceCache cache;
+    private final Map<InetSocketAddress, Queue<Connection>> idle = new ConcurrentHashMap<>();
+    private final LongAdder forwarded = new LongAdder();
+    private volatile List<InetSocketAddress> members;
+    private volatile HashRing<InetSocketAddress> ring;
+    private volatile Catalog catalog;
+    private int nodeId;
+    private long sequence;
+    private boolean stamped;
+
+    private PricingNode(InetSocketAddress bind, Catalog catalog, long cacheSize) throws IOException {
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(bind);
+        this.self = new InetSocketAddress(bind.getAddress(), serverSocket.getLocalPort());
+        this.catalog = catalog;
+        this.cache = new BasketPriceCache(cacheSize);
+        this.members = Collections.singletonList(self);
+        this.ring = new HashRing<>(members, VIRTUAL_NODES);
+        final AtomicInteger created = new AtomicInteger();
+        this.handlers = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "pricing-node-" + self.getPort() + "-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        handlers.execute(this::accept);
+    }
+
+    /**
+     * Starts serving on {@code bind} (port 0 picks a free one) as a cluster of one.
+     */
+    public static PricingNode listen(InetSocketAddress bind, Catalog catalog, long cacheSize) throws IOException {
+        return new PricingNode(bind, catalog, cacheSize);
+    }
+
+    /**
+     * Sets the members sharing the cache, this node included. Every member should be given the same
+     * list. The first join gives the catalog this node started with a cluster version.
+     */
+    public synchronized void join(List<InetSocketAddress> members) {
+        if (!members.contains(self)) throw new IllegalArgumentException(self + " is not in " + members);
+        for (InetSocketAddress member : members) {
+            if (member.isUnresolved()) throw new IllegalArgumentException("Cannot resolve member " + member);
+        }
+        final List<InetSocketAddress> sorted = new ArrayList<>(members);
+        sorted.sort(BY_ADDRESS);
+        int position = 0;
+        while (!sorted.get(position).equals(self)) {
+            position++;
+        }
+        if (position > MAX_NODE_ID) throw new IllegalArgumentException("At most " + (MAX_NODE_ID + 1) + " members, got " + members.size());
+        this.nodeId = position;
+        this.members = new ArrayList<>(members);
+        this.ring = new HashRing<>(this.members, VIRTUAL_NODES);
+        if (!stamped) {
+            catalog = stamp(catalog);
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        return self;
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    public BasketPriceCache getCache() {
+        return cache;
+    }
+
+    public long getForwarded() {
+        return forwarded.sum();
+    }
+
+    public int price(CharSequence skus) {
+        for (int attempt = 1; ; attempt++) {
+            final Catalog current = catalog;
+            final int[] counts = new int[current.getIndex().size()];
+            try {
+                SkuParser.parse(skus, current.getIndex(), counts);
+            } catch (InvalidSkuException e) {
+                return Checkout.ERROR;
+            }
+            final InetSocketAddress owner = ownerOf(current, counts);
+            if (owner.equals(self)) {
+                return cache.price(current, counts, PricingMode.GREEDY);
+            }
+            if (attempt == ATTEMPTS) {
+                return current.getPricer().price(counts);
+            }
+            try {
+                final Integer price = forward(owner, current, counts);
+                if (price != null) return price;
+            } catch (IOException e) {
+                System.err.println("Pricing locally, could not reach " + owner + ": " + e.getMessage());
+                return current.getPricer().price(counts);
+            }
+        }
+    }
+
+    InetSocketAddress ownerOf(Catalog current, int[] counts) {
+        return ring.ownerOf(HashRing.hash(current.getIndex(), counts));
+    }
+
+    /**
+     * Installs {@code next} here and pushes it to every other member.
+     *
+     * @return the members that could not be reached; they are retried in the background
+     */
+    public List<InetSocketAddress> publish(Catalog next) {
+        final Catalog published;
+        synchronized (this) {
+            published = stamp(next);
+            install(published);
+        }
+        final List<InetSocketAddress> unreachable = new ArrayList<>();
+        for (InetSocketAddress member : members) {
+            if (member.equals(self)) continue;
+            try {
+                replicate(member, published);
+            } catch (IOException e) {
+                System.err.println("Could not replicate catalog v" + published.getVersion() + " to " + member + ": " + e.getMessage());
+                unreachable.add(member);
+            }
+        }
+        for (InetSocketAddress member : unreachable) {
+            handlers.execute(() -> retryReplication(member, published));
+        }
+        return unreachable;
+    }
+
+    /**
+     * Keeps pushing {@code published} to {@code member}, backing off, until it is accepted. Gives up
+     * once this node has moved on to a newer catalog, whose publisher retries in turn, or closes.
+     */
+    private void retryReplication(InetSocketAddress member, Catalog published) {
+        long delay = FIRST_RETRY_MILLIS;
+        while (true) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (serverSocket.isClosed() || catalog.getVersion() != published.getVersion()) return;
+            try {
+                replicate(member, published);
+                System.out.println("Replicated catalog v" + published.getVersion() + " to " + member);
+                return;
+            } catch (IOException e) {
+                delay = Math.min(delay * 2, MAX_RETRY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * A copy of {@code next} under the next cluster version.
+     */
+    private synchronized Catalog stamp(Catalog next) {
+        final List<String> rules = next.toRules();
+        sequence++;
+        stamped = true;
+        final long version = sequence << SEQUENCE_SHIFT | (long) nodeId << NODE_SHIFT | (rules.hashCode() & 0xFFFF);
+        return Catalog.replica(version, rules);
+    }
+
+    private synchronized void install(Catalog next) {
+        sequence = Math.max(sequence, next.getVersion() >>> SEQUENCE_SHIFT);
+        if (next.getVersion() == catalog.getVersion() && next != catalog && !next.toRules().equals(catalog.toRules())) {
+            System.err.println("Refusing catalog v" + next.getVersion() + ": its rules differ from the installed catalog of that version");
+            return;
+        }
+        if (next.getVersion() > catalog.getVersion()) {
+            stamped = true;
+            catalog = next;
+        }
+    }
+
+    /**
+     * @return the owner's price, or null if the catalogs differed and the call should be retried
+     */
+    private Integer forward(InetSocketAddress owner, Catalog current, int[] counts) throws IOException {
+        final ByteBuffer basket = ByteBuffer.allocate(BasketCodec.maxEncodedSize(counts));
+        BasketCodec.encode(current.getVersion(), counts, basket);
+        return exchange(owner, (out, in) -> {
+            out.writeByte(PRICE);
+            out.writeInt(basket.position());
+            out.write(basket.array(), 0, basket.position());
+            out.flush();
+            final byte status = in.readByte();
+            if (status == OK) {
+                forwarded.increment();
+                return in.readInt();
+            }
+            if (status == INVALID) {
+                return Checkout.ERROR;
+            }
+            final long ownerVersion = in.readLong();
+            if (ownerVersion < current.getVersion()) {
+                sendCatalog(out, in, current);
+            } else {
+                out.writeByte(FETCH_CATALOG);
+                out.flush();
+                install(readCatalog(in));
+            }
+            return null;
+        });
+    }
+
+    private void replicate(InetSocketAddress member, Catalog next) throws IOException {
+        exchange(member, (out, in) -> {
+            sendCatalog(out, in, next);
+            return null;
+        });
+    }
+
+    private static void sendCatalog(DataOutputStream out, DataInputStream in, Catalog next) throws IOException {
+        out.writeByte(REPLICATE);
+        writeCatalog(out, next);
+        out.flush();
+        in.readByte();
+    }
+
+    private static void writeCatalog(DataOutputStream out, Catalog catalog) throws IOException {
+        final List<String> rules = catalog.toRules();
+        out.writeLong(catalog.getVersion());
+        out.writeInt(rules.size());
+        for (String rule : rules) {
+            out.writeUTF(rule);
+        }
+    }
+
+    private static Catalog readCatalog(DataInputStream in) throws IOException {
+        final long version = in.readLong();
+        final int size = in.readInt();
+        final List<String> rules = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rules.add(in.readUTF());
+        }
+        return Catalog.replica(version, rules);
+    }
+
+    private <T> T exchange(InetSocketAddress member, Exchange<T> exchange) throws IOException {
+        final Queue<Connection> pool = idle.computeIfAbsent(member, m -> new ConcurrentLinkedQueue<>());
+        Connection connection = pool.poll();
+        if (connection == null) {
+            connection = new Connection(member);
+        }
+        try {
+            final T result = exchange.run(connection.out, connection.in);
+            pool.offer(connection);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                handlers.execute(() -> serve(socket));
+            } catch (SocketException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Pricing node " + self + " could not accept: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket connection = socket) {
+            connection.setTcpNoDelay(true);
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            while (true) {
+                final byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                switch (type) {
+                    case PRICE:
+                        answerPrice(in, out);
+                        break;
+                    case REPLICATE:
+                        install(readCatalog(in));
+                        out.writeByte(OK);
+                        break;
+                    case FETCH_CATALOG:
+                        writeCatalog(out, catalog);
+                        break;
+                    default:
+                        throw new IOException("Unknown request type " + type);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            if (!serverSocket.isClosed()) {
+                System.err.println("Pricing node " + self + " dropped a connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private void answerPrice(DataInputStream in, DataOutputStream out) throws IOException {
+        final byte[] basket = new byte[in.readInt()];
+        in.readFully(basket);
+        final Catalog current = catalog;
+        final int[] counts = new int[current.getIndex().size()];
+        try {
+            // Ordinals only mean something for the caller's version, so compare before decoding them
+            if (BasketCodec.peekVersion(ByteBuffer.wrap(basket)) != current.getVersion()) {
+                out.writeByte(STALE);
+                out.writeLong(current.getVersion());
+                return;
+            }
+            BasketCodec.decode(ByteBuffer.wrap(basket), counts);
+        } catch (InvalidSkuException e) {
+            out.writeByte(INVALID);
+            return;
+        }
+        out.writeByte(OK);
+        out.writeInt(cache.price(current, counts, PricingMode.GREEDY));
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        handlers.shutdownNow();
+        for (Queue<Connection> pool : idle.values()) {
+            for (Connection connection; (connection = pool.poll()) != null; ) {
+                connection.close();
+            }
+        }
+    }
+
+    private interface Exchange<T> {
+        T run(DataOutputStream out, DataInputStream in) throws IOException;
+    }
+
+    private static final class Connection {
+        final Socket socket;
+        final DataOutputStream out;
+        final DataInputStream in;
+
+        Connection(InetSocketAddress member) throws IOException {
+            this.socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(TIMEOUT_MILLIS);
+            socket.connect(member, TIMEOUT_MILLIS);
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already broken
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package befaster.solutions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the cheapest way to apply offers to a basket, rather than applying them greedily.
+ *
+ * Every offer becomes a bundle: the items it consumes and what they cost together. Bundles that
+ * cost no less than their items at unit price are dropped. An "any N of" group offer is not
+ * expanded into bundles: the search only decides how many times it applies, and each application
+ * takes the N most expensive group items left. SKUs linked by bundles or groups (E and B, N and
+ * M, S to Z, ...) form components that are solved independently with a memoized search over how
+ * many times each bundle and group is applied, keyed on the component's count vector.
+ *
+ * The search is bounded by a number of steps (bundle and group applications tried) and a
+ * deadline. A component that exceeds either is priced by the {@link PricingEngine} instead, and
+ * every component keeps the greedy price when that is cheaper.
+ */
+public final class PricingSolver {
+    public static final int DEFAULT_MAX_STEPS = 50_000;
+    public static final long DEFAULT_TIME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final PricingEngine engine;
+    private final Component[] components;
+    private final boolean[] inComponent;
+    private final int maxSteps;
+    private final long timeBudgetNanos;
+
+    private PricingSolver(PricingEngine engine, Component[] components, int maxSteps, long timeBudgetNanos) {
+        this.engine = engine;
+        this.components = components;
+        this.inComponent = new boolean[engine.unitPrices.length];
+        for (Component component : components) {
+            for (int sku : component.skus) {
+                inComponent[sku] = true;
+            }
+        }
+        this.maxSteps = maxSteps;
+        this.timeBudgetNanos = timeBudgetNanos;
+    }
+
+    public static PricingSolver compile(PricingEngine engine) {
+        return compile(engine, DEFAULT_MAX_STEPS, DEFAULT_TIME_BUDGET_NANOS);
+    }
+
+    public static PricingSolver compile(PricingEngine engine, int maxSteps, long timeBudgetNanos) {
+        final List<int[]> bundles = new ArrayList<>();
+        final List<Integer> costs = new ArrayList<>();
+        final int size = engine.unitPrices.length;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            for (int i = 0; i < engine.tierQuantities[ordinal].length; i++) {
+                final int[] bundle = new int[size];
+                bundle[ordinal] = engine.tierQuantities[ordinal][i];
+                addIfWorthwhile(engine, bundles, costs, bundle, engine.tierPrices[ordinal][i]);
+            }
+            for (int i = 0; i < engine.freeTriggers[ordinal].length; i++) {
+                final int trigger = engine.freeTriggers[ordinal][i];
+                final int quantity = engine.freeTriggerQuantities[ordinal][i];
+                final int[] bundle = new int[size];
+                bundle[trigger] = quantity;
+                if (trigger == ordinal) {
+                    addIfWorthwhile(engine, bundles, costs, bundle, (quantity - 1) * engine.unitPrices[trigger]);
+                } else {
+                    bundle[ordinal] = 1;
+                    addIfWorthwhile(engine, bundles, costs, bundle, quantity * engine.unitPrices[trigger]);
+                }
+            }
+        }
+        final List<int[]> groups = new ArrayList<>();
+        for (int group = 0; group < engine.groupMembers.length; group++) {
+            final int[] members = engine.groupMembers[group];
+            final int quantity = engine.groupQuantities[group];
+            if (quantity * engine.unitPrices[members[0]] > engine.groupPrices[group]) {
+                final int[] rule = new int[members.length + 2];
+                rule[0] = quantity;
+                rule[1] = engine.groupPrices[group];
+                System.arraycopy(members, 0, rule, 2, members.length);
+                groups.add(rule);
+            }
+        }
+        return new PricingSolver(engine, components(engine.unitPrices, bundles, costs, groups), maxSteps, timeBudgetNanos);
+    }
+
+    public int price(int[] counts) {
+        final Budget budget = new Budget(maxSteps, System.nanoTime() + timeBudgetNanos);
+        final int[] scratch = new int[counts.length];
+        int total = 0;
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (!inComponent[ordinal]) total += counts[ordinal] * engine.unitPrices[ordinal];
+        }
+        for (Component component : components) {
+            Arrays.fill(scratch, 0);
+            final int[] local = new int[component.skus.length];
+            for (int i = 0; i < local.length; i++) {
+                local[i] = counts[component.skus[i]];
+                scratch[component.skus[i]] = local[i];
+            }
+            total += component.solve(local, budget, engine.price(scratch));
+        }
+        return total;
+    }
+
+    private static void addIfWorthwhile(PricingEngine engine, List<int[]> bundles, List<Integer> costs, int[] bundle, int cost) {
+        int unitTotal = 0;
+        for (int ordinal = 0; ordinal < bundle.length; ordinal++) {
+            unitTotal += bundle[ordinal] * engine.unitPrices[ordinal];
+        }
+        if (cost < unitTotal) {
+            bundles.add(bundle);
+            costs.add(cost);
+        }
+    }
+
+    private static Component[] components(int[] unitPrices, List<int[]> bundles, List<Integer> costs, List<int[]> groups) {
+        final int size = unitPrices.length;
+        final int[] parent = new int[size];
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+        final boolean[] used = new boolean[size];
+        for (int[] bundle : bundles) {
+            int first = -1;
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                if (bundle[ordinal] == 0) continue;
+                used[ordinal] = true;
+                if (first < 0) first = ordinal;
+                else parent[find(parent, ordinal)] = find(parent, first);
+            }
+        }
+        for (int[] group : groups) {
+            for (int i = 2; i < group.length; i++) {
+                used[group[i]] = true;
+                parent[find(parent, group[i])] = find(parent, group[2]);
+            }
+        }
+
+        final List<Component> components = new ArrayList<>();
+        for (int root = 0; root < size; root++) {
+            if (!used[root] || find(parent, root) != root) continue;
+            final List<Integer> skus = new ArrayList<>();
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                if (used[ordinal] && find(parent, ordinal) == root) skus.add(ordinal);
+            }
+            components.add(new Component(skus, unitPrices, bundles, costs, groups));
+        }
+        return components.toArray(new Component[components.size()]);
+    }
+
+    private static int find(int[] parent, int ordinal) {
+        while (parent[ordinal] != ordinal) {
+            ordinal = parent[ordinal] = parent[parent[ordinal]];
+        }
+        return ordinal;
+    }
+
+    private static final class Component {
+        final int[] skus;
+        final int[] unitPrices;
+        final int[][] bundles;
+        final int[] costs;
+        final int[][] groupMembers;
+        final int[] groupQuantities;
+        final int[] groupPrices;
+
+        Component(List<Integer> skus, int[] unitPrices, List<int[]> allBundles, List<Integer> allCosts, List<int[]> allGroups) {
+            this.skus = skus.stream().mapToInt(Integer::intValue).toArray();
+            this.unitPrices = new int[this.skus.length];
+            for (int i = 0; i < this.skus.length; i++) {
+                this.unitPrices[i] = unitPrices[this.skus[i]];
+            }
+            final List<int[]> bundles = new ArrayList<>();
+            final List<Integer> costs = new ArrayList<>();
+            for (int b = 0; b < allBundles.size(); b++) {
+                final int[] local = new int[this.skus.length];
+                boolean inComponent = false;
+                for (int i = 0; i < local.length; i++) {
+                    local[i] = allBundles.get(b)[this.skus[i]];
+                    inComponent |= local[i] > 0;
+                }
+                if (inComponent) {
+                    bundles.add(local);
+                    costs.add(allCosts.get(b));
+                }
+            }
+            this.bundles = bundles.toArray(new int[bundles.size()][]);
+            this.costs = costs.stream().mapToInt(Integer::intValue).toArray();
+            final List<int[]> groups = new ArrayList<>();
+            for (int[] group : allGroups) {
+                if (skus.contains(group[2])) groups.add(group);
+            }
+            this.groupMembers = new int[groups.size()][];
+            this.groupQuantities = new int[groups.size()];
+            this.groupPrices = new int[groups.size()];
+            for (int g = 0; g < groups.size(); g++) {
+                final int[] group = groups.get(g);
+                groupQuantities[g] = group[0];
+                groupPrices[g] = group[1];
+                groupMembers[g] = new int[group.length - 2];
+                for (int i = 2; i < group.length; i++) {
+                    groupMembers[g][i - 2] = skus.indexOf(group[i]);
+                }
+            }
+        }
+
+        int solve(int[] counts, Budget budget, int greedy) {
+            try {
+                return Math.min(greedy, best(0, counts, new HashMap<>(), budget));
+            } catch (BudgetExceeded e) {
+                return greedy;
+            }
+        }
+
+        /**
+         * The cheapest price of {@code counts} using bundles and groups from {@code step} on:
+         * bundles first, then groups.
+         */
+        private int best(int step, int[] counts, Map<State, Integer> memo, Budget budget) {
+            if (step == bundles.length + groupMembers.length) return unitCost(counts);
+            final State state = new State(step, counts);
+            final Integer known = memo.get(state);
+            if (known != null) return known;
+            final int[] rest = counts.clone();
+            int best = Integer.MAX_VALUE;
+            if (step < bundles.length) {
+                final int[] consumed = bundles[step];
+                for (int applications = 0; ; applications++) {
+                    budget.step();
+                    best = Math.min(best, applications * costs[step] + best(step + 1, rest, memo, budget));
+                    if (!take(rest, consumed)) break;
+                }
+            } else {
+                final int group = step - bundles.length;
+                for (int applications = 0; ; applications++) {
+                    budget.step();
+                    best = Math.min(best, applications * groupPrices[group] + best(step + 1, rest, memo, budget));
+                    if (!takeGroupBundle(rest, group)) break;
+                }
+            }
+            memo.put(state, best);
+            return best;
+        }
+
+        /**
+         * Takes the {@code quantity} most expensive items of {@code group} left in {@code counts},
+         * unless there are too few or they cost no more than the group price at unit price.
+         */
+        private boolean takeGroupBundle(int[] counts, int group) {
+            final int[] members = groupMembers[group];
+            int needed = groupQuantities[group];
+            int unitTotal = 0;
+            for (int member : members) {
+                final int taken = Math.min(needed, counts[member]);
+                unitTotal += taken * unitPrices[member];
+                needed -= taken;
+                if (needed == 0) break;
+            }
+            if (needed > 0 || unitTotal <= groupPrices[group]) return false;
+            needed = groupQuantities[group];
+            for (int member : members) {
+                final int taken = Math.min(needed, counts[member]);
+                counts[member] -= taken;
+                needed -= taken;
+                if (needed == 0) break;
+            }
+            return true;
+        }
+
+        private int unitCost(int[] counts) {
+            int cost = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cost += counts[i] * unitPrices[i];
+            }
+            return cost;
+        }
+    }
+
+    private static boolean take(int[] counts, int[] consumed) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] < consumed[i]) return false;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] -= consumed[i];
+        }
+        return true;
+    }
+
+    private static final class State {
+        final int step;
+        final int[] counts;
+        final int hash;
+
+        State(int step, int[] counts) {
+            this.step = step;
+            this.counts = counts.clone();
+            this.hash = 31 * step + Arrays.hashCode(counts);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof State)) return false;
+            final State that = (State) o;
+            return step == that.step && Arrays.equals(counts, that.counts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Budget {
+        private static final int CLOCK_CHECK_INTERVAL = 16;
+        private final int maxSteps;
+        private final long deadline;
+        private int steps;
+
+        Budget(int maxSteps, long deadline) {
+            this.maxSteps = maxSteps;
+            this.deadline = deadline;
+        }
+
+        void step() {
+            if (++steps > maxSteps) throw BudgetExceeded.INSTANCE;
+            if (steps % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) throw BudgetExceeded.INSTANCE;
+        }
+    }
+
+    private static final class BudgetExceeded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        static final BudgetExceeded INSTANCE = new BudgetExceeded();
+
+        private BudgetExceeded() {
+            super("Pricing solver budget exceeded", null, false, false);
+        }
+    }
+}
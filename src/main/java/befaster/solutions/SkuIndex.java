@@ -0,0 +1,55 @@
+package befaster.solutions;
+
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * Maps single-character SKUs to dense ordinals, so baskets can be counted in a plain {@code int[]}.
+ */
+public class SkuIndex {
+    public static final int NOT_A_SKU = -1;
+    private static final int ASCII = 128;
+
+    private final int[] ordinals;
+    private final String[] skus;
+
+    public static SkuIndex of(Collection<String> products) {
+        return new SkuIndex(new TreeSet<>(products));
+    }
+
+    private SkuIndex(TreeSet<String> products) {
+        this.ordinals = new int[ASCII];
+        this.skus = new String[products.size()];
+        for (int i = 0; i < ASCII; i++) {
+            ordinals[i] = NOT_A_SKU;
+        }
+        int ordinal = 0;
+        for (String product : products) {
+            if (product.length() != 1 || !isSkuChar(product.charAt(0))) {
+                throw new IllegalArgumentException("Not a valid SKU: \"" + product + "\"");
+            }
+            ordinals[product.charAt(0)] = ordinal;
+            skus[ordinal++] = product;
+        }
+    }
+
+    private static boolean isSkuChar(char c) {
+        return c > ' ' && c < ASCII && c != ',' && !Character.isDigit(c);
+    }
+
+    public int ordinalOf(char sku) {
+        return sku < ASCII ? ordinals[sku] : NOT_A_SKU;
+    }
+
+    public int ordinalOf(String sku) {
+        return sku.length() == 1 ? ordinalOf(sku.charAt(0)) : NOT_A_SKU;
+    }
+
+    public String skuAt(int ordinal) {
+        return skus[ordinal];
+    }
+
+    public int size() {
+        return skus.length;
+    }
+}
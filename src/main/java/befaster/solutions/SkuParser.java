@@ -0,0 +1,75 @@
+package befaster.solutions;
+
+/**
+ * Single-pass tokenizer for basket strings such as "3A,2B C" or "AAB".
+ *
+ * Tokens are separated by ',' or ' '. A token may start with a quantity, which repeats every
+ * SKU in that token ("2AB" is "ABAB"). Counts are written straight into an {@code int[]}
+ * indexed by {@link SkuIndex} ordinal, so nothing is allocated per character.
+ *
+ * The parser is fed one char at a time, which lets the same state machine serve both whole
+ * strings and streamed input.
+ */
+public class SkuParser {
+    private static final int NO_QUANTITY = -1;
+    private static final int MAX_QUANTITY = Integer.MAX_VALUE / 10;
+
+    private final SkuIndex index;
+    private int[] counts;
+    private long position;
+    private int quantity;
+    private boolean skuInToken;
+
+    public SkuParser(SkuIndex index) {
+        this.index = index;
+    }
+
+    public static void parse(CharSequence skus, SkuIndex index, int[] counts) {
+        final SkuParser parser = new SkuParser(index).reset(counts);
+        final int length = skus.length();
+        for (int i = 0; i < length; i++) {
+            parser.accept(skus.charAt(i));
+        }
+        parser.finish();
+    }
+
+    public SkuParser reset(int[] counts) {
+        this.counts = counts;
+        this.position = 0;
+        this.quantity = NO_QUANTITY;
+        this.skuInToken = false;
+        return this;
+    }
+
+    public void accept(char c) {
+        if (c == ',' || c == ' ') {
+            endToken();
+        } else if (c >= '0' && c <= '9') {
+            if (skuInToken) throw new InvalidSkuException("Quantity after SKU", position);
+            if (quantity > MAX_QUANTITY) throw new InvalidSkuException("Quantity too large", position);
+            quantity = (quantity == NO_QUANTITY ? 0 : quantity * 10) + (c - '0');
+        } else {
+            final int ordinal = index.ordinalOf(c);
+            if (ordinal == SkuIndex.NOT_A_SKU) throw new InvalidSkuException("Unknown SKU '" + c + "'", position);
+            final int n = quantity == NO_QUANTITY ? 1 : quantity;
+            if (counts[ordinal] > Integer.MAX_VALUE - n) throw new InvalidSkuException("Quantity too large", position);
+            counts[ordinal] += n;
+            skuInToken = true;
+        }
+        position++;
+    }
+
+    public void finish() {
+        endToken();
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    private void endToken() {
+        if (quantity != NO_QUANTITY && !skuInToken) throw new InvalidSkuException("Quantity without SKU", position);
+        quantity = NO_QUANTITY;
+        skuInToken = false;
+    }
+}
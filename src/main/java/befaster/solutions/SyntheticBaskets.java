@@ -0,0 +1,69 @@
+package befaster.solutions;
+
+import befaster.solutions.Checkout.Offer;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates baskets for load tests from a catalog.
+ *
+ * SKUs are drawn from a Zipf distribution over the catalog order (exponent 0 is uniform), the
+ * number of loose items averages {@code meanItems}, and with probability {@code offerHitRate} a
+ * basket also gets enough of one offer's trigger to fire it.
+ */
+public class SyntheticBaskets {
+    private final Random random;
+    private final SkuIndex index;
+    private final List<Offer> offers;
+    private final double[] cumulative;
+    private final int meanItems;
+    private final double offerHitRate;
+
+    public SyntheticBaskets(Catalog catalog, long seed, int meanItems, double zipfExponent, double offerHitRate) {
+        this.random = new Random(seed);
+        this.index = catalog.getIndex();
+        this.offers = catalog.getOffers();
+        this.meanItems = meanItems;
+        this.offerHitRate = offerHitRate;
+        this.cumulative = new double[index.size()];
+        double sum = 0;
+        for (int rank = 0; rank < cumulative.length; rank++) {
+            sum += 1 / Math.pow(rank + 1, zipfExponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < cumulative.length; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    public String next() {
+        final StringBuilder basket = new StringBuilder();
+        final int items = meanItems == 0 ? 0 : random.nextInt(2 * meanItems + 1);
+        for (int i = 0; i < items; i++) {
+            if (i > 0) basket.append(',');
+            basket.append(index.skuAt(nextOrdinal()));
+        }
+        if (!offers.isEmpty() && random.nextDouble() < offerHitRate) {
+            final Offer offer = offers.get(random.nextInt(offers.size()));
+            if (basket.length() > 0) basket.append(',');
+            basket.append(offer.productMatch.quantity).append(offer.productMatch.product);
+        }
+        return basket.toString();
+    }
+
+    private int nextOrdinal() {
+        final double u = random.nextDouble();
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (cumulative[middle] < u) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,54 @@
+package befaster.solutions;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi-producer, single-consumer ring of trace lines.
+ * Producers never block: when the ring is full the line is dropped and counted.
+ */
+class TraceRingBuffer {
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long head;
+
+    TraceRingBuffer(int capacity) {
+        final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    boolean offer(String line) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head > mask) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.lazySet((int) claimed & mask, line);
+        return true;
+    }
+
+    /** Only ever called from the draining thread. */
+    String poll() {
+        final long current = head;
+        final int slot = (int) current & mask;
+        final String line = slots.get(slot);
+        if (line == null) return null;
+        slots.lazySet(slot, null);
+        head = current + 1;
+        return line;
+    }
+
+    boolean isEmpty() {
+        return head == tail.get();
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,97 @@
+package befaster.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * Runs a callback on a daemon thread whenever a file is created or modified.
+ *
+ * The callback only runs once the file has stopped changing: its content must read the same
+ * twice, {@link #SETTLE_MILLIS} apart, so a file caught halfway through a save is never handed
+ * over. Writers that can should still write a temporary file and rename it into place.
+ */
+public final class FileWatcher implements Closeable {
+    static final long SETTLE_MILLIS = 50;
+
+    private final WatchService watchService;
+
+    public static FileWatcher watch(Path file, Runnable onChange) throws IOException {
+        return new FileWatcher(file.toAbsolutePath(), onChange);
+    }
+
+    private FileWatcher(Path file, Runnable onChange) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        final Thread thread = new Thread(() -> run(file, onChange), "watch-" + file.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run(Path file, Runnable onChange) {
+        try {
+            while (true) {
+                final WatchKey key = watchService.take();
+                final boolean changed = changed(key, file.getFileName());
+                if (changed && awaitComplete(file)) {
+                    try {
+                        onChange.run();
+                    } catch (RuntimeException e) {
+                        System.err.println("Could not handle change to " + file.getFileName() + ": " + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * @return false if the file has gone again, e.g. a temporary file renamed away
+     */
+    private boolean awaitComplete(Path file) throws InterruptedException {
+        try {
+            byte[] previous = Files.readAllBytes(file);
+            while (true) {
+                Thread.sleep(SETTLE_MILLIS);
+                // Later events for the same save are covered by this read
+                for (WatchKey key = watchService.poll(); key != null; key = watchService.poll()) {
+                    changed(key, file.getFileName());
+                }
+                final byte[] current = Files.readAllBytes(file);
+                if (Arrays.equals(previous, current)) return true;
+                previous = current;
+            }
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            System.err.println("Could not read " + file.getFileName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean changed(WatchKey key, Path fileName) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            changed |= fileName.equals(event.context());
+        }
+        key.reset();
+        return changed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
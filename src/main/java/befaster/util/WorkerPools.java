@@ -0,0 +1,42 @@
+package befaster.util;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pools for running solutions.
+ */
+public final class WorkerPools {
+
+    private WorkerPools() {
+    }
+
+    /**
+     * A fixed pool of {@code threads} workers: virtual threads when the runtime has them,
+     * otherwise daemon platform threads.
+     */
+    public static ExecutorService newWorkerPool(int threads) {
+        return Executors.newFixedThreadPool(threads, virtualThreadFactory().orElseGet(() -> {
+            final AtomicInteger created = new AtomicInteger();
+            return runnable -> {
+                final Thread thread = new Thread(runnable, "solution-worker-" + created.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }));
+    }
+
+    private static Optional<ThreadFactory> virtualThreadFactory() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            final Object named = builderType.getMethod("name", String.class, long.class).invoke(builder, "solution-worker-", 1L);
+            return Optional.of((ThreadFactory) builderType.getMethod("factory").invoke(named));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+}
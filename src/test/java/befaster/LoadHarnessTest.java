@@ -0,0 +1,89 @@
+package befaster;
+
+import befaster.runner.ClientRunner;
+import befaster.runner.PricingServer;
+import befaster.runner.RoundStore;
+import befaster.solutions.Catalog;
+import befaster.solutions.SyntheticBaskets;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import tdl.client.abstractions.UserImplementation;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class LoadHarnessTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<String, UserImplementation> solutions =
+            Start.registerSolutions(ClientRunner.forUsername("test")).getSolutions();
+
+    @Test
+    public void syntheticLoadMatchesTheReferencePricer() {
+        final List<LoadHarness.Request> requests = LoadHarness.synthetic(
+                new SyntheticBaskets(Catalog.current(), 1, 8, 1.0, 0.5), 2000);
+
+        final LoadHarness.Report report = LoadHarness.run(solutions, requests, 4, 0);
+
+        assertThat(report.requests, equalTo(2000L));
+        assertThat(report.errors, equalTo(0L));
+        assertThat(report.mismatches, equalTo(0L));
+        assertThat(report.latency.getTotalCount(), equalTo(2000L));
+    }
+
+    @Test
+    public void openLoopKeepsToTheSchedule() {
+        final List<LoadHarness.Request> requests = LoadHarness.synthetic(
+                new SyntheticBaskets(Catalog.current(), 2, 4, 0, 0.3), 200);
+
+        final LoadHarness.Report report = LoadHarness.run(solutions, requests, 2, 2000);
+
+        assertThat(report.elapsedNanos, greaterThanOrEqualTo(Duration.ofMillis(90).toNanos()));
+    }
+
+    @Test
+    public void replayReportsResponsesThatDifferFromTheRecording() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try (RoundStore store = RoundStore.open(directory, 64 * 1024, Duration.ofSeconds(1))) {
+            store.appendAudit("hello", new String[]{"Bob"}, "Hello, Bob!");
+            store.appendAudit("checkout", new String[]{"AAA"}, "130");
+            store.appendAudit("sum", new String[]{"1", "2"}, "3");
+        }
+        final List<LoadHarness.Request> requests = LoadHarness.replay(directory);
+
+        final LoadHarness.Report report = LoadHarness.run(
+                Collections.singletonMap("checkout", solutions.get("checkout")), requests, 1, 0);
+
+        assertThat(report.requests, equalTo(3L));
+        assertThat(report.errors, equalTo(2L));
+        assertThat(report.mismatches, equalTo(0L));
+    }
+
+    @Test
+    public void loopbackLoadAgainstThePricingServer() throws Exception {
+        final List<LoadHarness.Request> requests = LoadHarness.synthetic(
+                new SyntheticBaskets(Catalog.current(), 3, 8, 1.0, 0.5), 2000);
+        try (PricingServer server = PricingServer.start(solutions, new InetSocketAddress("localhost", 0), 2, 4, 64)) {
+            final Map<String, UserImplementation> remote = LoadHarness.remote(
+                    URI.create("http://localhost:" + server.getAddress().getPort()), solutions.keySet());
+
+            final LoadHarness.Report report = LoadHarness.run(remote, requests, 4, 0);
+
+            report.printTo(System.out);
+            assertThat(report.errors, equalTo(0L));
+            assertThat(report.mismatches, equalTo(0L));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package befaster.runner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import tdl.client.abstractions.UserImplementation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.Matchers.equalTo;
+
+public class PricingServerTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PricingServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        final Map<String, UserImplementation> solutions = new HashMap<>();
+        solutions.put("sum", p -> Integer.parseInt(p[0]) + Integer.parseInt(p[1]));
+        solutions.put("hello", p -> {
+            throw new SolutionNotImplementedException();
+        });
+        solutions.put("wait", p -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "done";
+        });
+        server = PricingServer.start(solutions, new InetSocketAddress("localhost", 0), 2, 4, 3);
+    }
+
+    @After
+    public void stopServer() {
+        release.countDown();
+        server.close();
+    }
+
+    @Test
+    public void answersSingleCalls() throws IOException {
+        assertThat(post("/sum", "1\n2"), equalTo("200 3"));
+        assertThat(post("/hello", "Bob"), equalTo("501 Not implemented"));
+        assertThat(post("/nope", ""), equalTo("404 No solution for nope"));
+        assertThat(post("/sum", "x\n2"), containsString("400 NumberFormatException"));
+    }
+
+    @Test
+    public void batchAnswersEveryLineInOrder() throws IOException {
+        assertThat(post("/batch", "sum\t1\t2\nnope\nsum\t40\t2"), equalTo("200 3\n!No solution for nope\n42\n"));
+    }
+
+    @Test
+    public void batchLargerThanTheInFlightLimitIsRefused() throws IOException {
+        assertThat(post("/batch", "sum\t1\t2\nsum\t1\t2\nsum\t1\t2\nsum\t1\t2"), startsWith("413 "));
+    }
+
+    @Test
+    public void everyBatchLineTakesAnInFlightSlot() throws Exception {
+        final Thread waiting = new Thread(() -> postQuietly("/wait"));
+        waiting.start();
+        while (server.inFlight() < 1) {
+            Thread.sleep(5);
+        }
+
+        assertThat(post("/batch", "sum\t1\t2\nsum\t1\t2\nsum\t1\t2"), equalTo("503 Too many requests in flight"));
+        assertThat(post("/batch", "sum\t1\t2\nsum\t1\t2"), equalTo("200 3\n3\n"));
+
+        release.countDown();
+        waiting.join();
+    }
+
+    @Test
+    public void pipelinedRequestsOnOneConnectionAreAnsweredInOrder() throws IOException {
+        try (Socket socket = new Socket("localhost", server.getAddress().getPort())) {
+            final String request = "POST /sum HTTP/1.1\r\nHost: localhost\r\nContent-Length: 3\r\n\r\n";
+            socket.getOutputStream().write((request + "1\n2" + request + "5\n5").getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+
+            final String responses = readUntil(socket.getInputStream(), "\r\n\r\n10");
+            assertThat(responses, containsString("\r\n\r\n3HTTP/1.1 200"));
+            assertThat(responses, endsWith("\r\n\r\n10"));
+        }
+    }
+
+    @Test
+    public void refusesCallsBeyondTheInFlightLimit() throws Exception {
+        final Thread first = new Thread(() -> postQuietly("/wait"));
+        final Thread second = new Thread(() -> postQuietly("/wait"));
+        final Thread third = new Thread(() -> postQuietly("/wait"));
+        first.start();
+        second.start();
+        third.start();
+        while (server.inFlight() < 3) {
+            Thread.sleep(5);
+        }
+
+        assertThat(post("/sum", "1\n2"), equalTo("503 Too many requests in flight"));
+
+        release.countDown();
+        first.join();
+        second.join();
+        third.join();
+        assertThat(post("/sum", "1\n2"), equalTo("200 3"));
+    }
+
+    private void postQuietly(String path) {
+        try {
+            post(path, "");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String post(String path, String body) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getAddress().getPort() + path).openConnection();
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        final int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            return status + " " + readUntil(in, null);
+        }
+    }
+
+    private static String readUntil(InputStream in, String end) throws IOException {
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        for (int b; (b = in.read()) != -1; ) {
+            received.write(b);
+            if (end != null && new String(received.toByteArray(), StandardCharsets.US_ASCII).endsWith(end)) break;
+        }
+        return new String(received.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
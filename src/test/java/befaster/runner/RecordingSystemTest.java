@@ -0,0 +1,108 @@
+package befaster.runner;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class RecordingSystemTest {
+    private HttpServer server;
+    private final AtomicInteger statusRequests = new AtomicInteger();
+    private final List<String> notifications = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void startStubRecorder() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/status", exchange -> {
+            statusRequests.incrementAndGet();
+            respond(exchange, "OK");
+        });
+        server.createContext("/notify", exchange -> {
+            notifications.add(readBody(exchange));
+            respond(exchange, "ACK");
+        });
+        server.start();
+    }
+
+    @After
+    public void stopStubRecorder() {
+        server.stop(0);
+    }
+
+    @Test
+    public void statusIsCachedForTheTtl() {
+        final RecordingSystem recordingSystem = new RecordingSystem(endpoint(), Duration.ofMinutes(1), 1);
+
+        assertThat(recordingSystem.status(), equalTo(true));
+        assertThat(recordingSystem.status(), equalTo(true));
+        assertThat(statusRequests.get(), equalTo(1));
+    }
+
+    @Test
+    public void queuedEventsAreSentInOrderAndDrainedOnClose() {
+        final RecordingSystem recordingSystem = new RecordingSystem(endpoint(), Duration.ZERO, 1);
+
+        recordingSystem.submit("CHK_R1", "deploy");
+        recordingSystem.submit("CHK_R1", "test");
+        recordingSystem.close(Duration.ofSeconds(5));
+
+        assertThat(notifications, contains("CHK_R1/deploy", "CHK_R1/test"));
+    }
+
+    @Test
+    public void missingRecorderNeverBlocksTheCaller() throws IOException {
+        final int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        final RecordingSystem recordingSystem = new RecordingSystem("http://localhost:" + closedPort, Duration.ZERO, 2);
+
+        final long start = System.nanoTime();
+        recordingSystem.submit("CHK_R1", "deploy");
+        final long submitNanos = System.nanoTime() - start;
+        recordingSystem.close(Duration.ofSeconds(2));
+
+        assertThat(submitNanos, lessThan(Duration.ofMillis(50).toNanos()));
+        assertThat(recordingSystem.status(), equalTo(false));
+    }
+
+    private String endpoint() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            final StringBuilder body = new StringBuilder();
+            final byte[] buffer = new byte[256];
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                body.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+            }
+            return body.toString();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package befaster.runner;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+
+public class RoundStoreTest {
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RoundStore open(Path directory) throws Exception {
+        return RoundStore.open(directory, SEGMENT_BYTES, Duration.ofMillis(50));
+    }
+
+    @Test
+    public void roundsAndAuditSurviveReopeningAcrossSegments() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try (RoundStore store = open(directory)) {
+            store.appendRound("CHK_R1", "Checkout, round 1");
+            for (int i = 0; i < 5000; i++) {
+                store.appendAudit("checkout", new String[]{"AAB", String.valueOf(i)}, "130");
+            }
+            store.appendRound("CHK_R2", "Checkout, round 2");
+        }
+
+        try (RoundStore store = open(directory)) {
+            final List<String[]> audit = new ArrayList<>();
+            store.forEachAudit(audit::add);
+
+            assertThat(store.lastRound(), equalTo(Optional.of("CHK_R2")));
+            assertThat(store.description("CHK_R1"), equalTo(Optional.of("Checkout, round 1")));
+            assertThat(audit.size(), equalTo(5000));
+            assertThat(audit.get(4999), arrayContaining("checkout", "130", "AAB", "4999"));
+        }
+    }
+
+    @Test
+    public void nullParamsAreLoggedAsNull() throws Exception {
+        try (RoundStore store = open(folder.getRoot().toPath())) {
+            store.appendAudit("hello", new String[]{null}, null);
+            final List<String[]> audit = new ArrayList<>();
+            store.forEachAudit(audit::add);
+
+            assertThat(audit.get(0), arrayContaining("hello", "null", "null"));
+        }
+    }
+
+    @Test
+    public void tornTailIsDroppedAndOverwritten() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try (RoundStore store = open(directory)) {
+            store.appendRound("CHK_R1", "first");
+            store.appendRound("CHK_R2", "second");
+        }
+        final int secondRecord = 8 + 1 + 4 + "CHK_R1".length() + 4 + "first".length();
+        try (RandomAccessFile segment = new RandomAccessFile(directory.resolve("segment-000000.log").toFile(), "rw")) {
+            segment.seek(secondRecord + 12);
+            segment.write('X');
+        }
+
+        try (RoundStore store = open(directory)) {
+            assertThat(store.lastRound(), equalTo(Optional.of("CHK_R1")));
+            assertThat(store.description("CHK_R2"), equalTo(Optional.empty()));
+
+            store.appendRound("CHK_R3", "third");
+        }
+        try (RoundStore store = open(directory)) {
+            assertThat(store.lastRound(), equalTo(Optional.of("CHK_R3")));
+        }
+    }
+}
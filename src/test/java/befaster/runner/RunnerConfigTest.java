@@ -0,0 +1,67 @@
+package befaster.runner;
+
+import com.google.common.collect.Lists;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class RunnerConfigTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RunnerConfig load(String... lines) throws Exception {
+        final Path file = folder.newFile("credentials.config").toPath();
+        Files.write(file, Lists.newArrayList(lines), StandardCharsets.UTF_8);
+        return RunnerConfig.load(file);
+    }
+
+    @Test
+    public void typedGettersParseFileValues() throws Exception {
+        final RunnerConfig config = load("tdl_username=someone", "tdl_solution_workers=4", "tdl_require_rec=false", "tdl_timeout=250ms");
+
+        assertThat(config.getString("tdl_username"), equalTo("someone"));
+        assertThat(config.getInt("tdl_solution_workers", 1), equalTo(4));
+        assertThat(config.getBoolean("tdl_require_rec", true), equalTo(false));
+        assertThat(config.getDuration("tdl_timeout", Duration.ZERO), equalTo(Duration.ofMillis(250)));
+        assertThat(config.getInt("tdl_missing", 7), equalTo(7));
+    }
+
+    @Test
+    public void systemPropertiesOverrideTheFile() throws Exception {
+        System.setProperty("tdl_override_test", "fromProperty");
+        try {
+            assertThat(load("tdl_override_test=fromFile").getString("tdl_override_test"), equalTo("fromProperty"));
+        } finally {
+            System.clearProperty("tdl_override_test");
+        }
+    }
+
+    @Test
+    public void unrelatedSystemPropertiesAreNotConfig() throws Exception {
+        final RunnerConfig config = load("tdl_username=someone");
+
+        assertThat(config.find("java.version").isPresent(), equalTo(false));
+        assertThat(config.find("tdl_username").get(), equalTo("someone"));
+    }
+
+    @Test(expected = ConfigNotFoundException.class)
+    public void missingFileIsReportedOnRequiredKeys() throws Exception {
+        RunnerConfig.load(folder.getRoot().toPath().resolve("absent.config")).getString("tdl_username");
+    }
+
+    @Test
+    public void durationsAcceptUnitsAndIso() {
+        assertThat(RunnerConfig.parseDuration("2s"), equalTo(Duration.ofSeconds(2)));
+        assertThat(RunnerConfig.parseDuration("PT1M"), equalTo(Duration.ofMinutes(1)));
+        assertThat(RunnerConfig.parseDuration("1500"), equalTo(Duration.ofMillis(1500)));
+    }
+}
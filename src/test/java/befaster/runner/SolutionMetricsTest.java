@@ -0,0 +1,95 @@
+package befaster.runner;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class SolutionMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void countsCallsAndErrorsPerMethod() {
+        final SolutionMetrics metrics = new SolutionMetrics();
+        final InstrumentedSolution sum = metrics.instrument("sum", p -> Integer.parseInt(p[0]) + Integer.parseInt(p[1]));
+        final InstrumentedSolution hello = metrics.instrument("hello", p -> {
+            throw new SolutionNotImplementedException();
+        });
+
+        assertThat(sum.process("1", "2"), equalTo(3));
+        swallow(() -> sum.process("x", "2"));
+        swallow(() -> hello.process("Bob"));
+
+        assertThat(sum.getCalls(), equalTo(2L));
+        assertThat(sum.getErrors(), equalTo(1L));
+        assertThat(sum.getParseErrors(), equalTo(1L));
+        assertThat(hello.getNotImplemented(), equalTo(1L));
+        assertThat(sum.getLatencyNanos().getTotalCount(), equalTo(2L));
+    }
+
+    @Test
+    public void invalidInputResultsCountAsParseErrors() {
+        final InstrumentedSolution checkout = new SolutionMetrics().instrument("checkout", p -> p[0].equals("?") ? -1 : 50, -1);
+
+        checkout.process("A");
+        checkout.process("?");
+
+        assertThat(checkout.getParseErrors(), equalTo(1L));
+        assertThat(checkout.getErrors(), equalTo(0L));
+    }
+
+    @Test
+    public void percentilesAreWithinBucketPrecision() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1000);
+        }
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getValueAtPercentile(50), allOf(greaterThanOrEqualTo(5_000_000L), lessThanOrEqualTo(5_320_000L)));
+        assertThat(snapshot.getValueAtPercentile(99.9), allOf(greaterThanOrEqualTo(9_990_000L), lessThanOrEqualTo(10_630_000L)));
+    }
+
+    @Test
+    public void bucketBoundsCoverTheirValues() {
+        for (long value : new long[]{0, 15, 16, 17, 1000, 123_456_789, Long.MAX_VALUE}) {
+            final int index = LatencyHistogram.indexOf(value);
+            assertThat(LatencyHistogram.highestValueIn(index), greaterThanOrEqualTo(value));
+            if (index > 0) {
+                assertThat(LatencyHistogram.highestValueIn(index - 1), lessThanOrEqualTo(value - 1));
+            }
+        }
+    }
+
+    @Test
+    public void dumpWritesOneLinePerMethod() throws Exception {
+        final SolutionMetrics metrics = new SolutionMetrics();
+        metrics.instrument("checkout", p -> 0).process("A");
+        final Path file = folder.getRoot().toPath().resolve("metrics.txt");
+
+        metrics.dumpTo(file);
+
+        final String dumped = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertThat(dumped, allOf(containsString("p999(us)"), containsString("checkout")));
+    }
+
+    private static void swallow(Runnable call) {
+        try {
+            call.run();
+        } catch (RuntimeException ignored) {
+            // counted by the instrumentation
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package befaster.solutions;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BasketCodecTest {
+
+    @Test
+    public void binaryCheckoutMatchesStringCheckout() {
+        for (String skus : new String[]{"", "A", "3A,2B C", "AAAAAEEBFFF", "STXYZ", "10000A"}) {
+            assertEquals(skus, (int) Checkout.checkout(skus), Checkout.checkout(BasketCodec.encode(Catalog.current(), skus)));
+        }
+    }
+
+    @Test
+    public void directBuffersDecodeInPlaceOneBasketAfterAnother() {
+        final Catalog catalog = Catalog.current();
+        final ByteBuffer first = BasketCodec.encode(catalog, "3A");
+        final ByteBuffer second = BasketCodec.encode(catalog, "2B");
+        final ByteBuffer direct = ByteBuffer.allocateDirect(first.remaining() + second.remaining());
+        direct.put(first).put(second).flip();
+
+        assertEquals(130, Checkout.checkout(direct));
+        assertEquals(45, Checkout.checkout(direct));
+        assertEquals(0, direct.remaining());
+    }
+
+    @Test
+    public void countsRoundTripThroughVarints() {
+        final int[] counts = {0, 1, 127, 128, Integer.MAX_VALUE};
+        final ByteBuffer buffer = ByteBuffer.allocate(BasketCodec.maxEncodedSize(counts));
+        BasketCodec.encode(Long.MAX_VALUE, counts, buffer);
+        buffer.flip();
+
+        final int[] decoded = new int[counts.length];
+        assertEquals(Long.MAX_VALUE, BasketCodec.decode(buffer, decoded));
+        assertArrayEquals(counts, decoded);
+    }
+
+    @Test
+    public void staleOrMalformedBasketsAreErrors() {
+        final ByteBuffer stale = ByteBuffer.allocate(16);
+        BasketCodec.encode(Catalog.current().getVersion() + 1, new int[]{1}, stale);
+        stale.flip();
+        final ByteBuffer truncated = BasketCodec.encode(Catalog.current(), "3A");
+        truncated.limit(truncated.limit() - 1);
+
+        assertEquals(Checkout.ERROR, Checkout.checkout(stale));
+        assertEquals(Checkout.ERROR, Checkout.checkout(truncated));
+    }
+
+    @Test
+    public void negativeVarintsAreErrors() {
+        final int a = Catalog.current().getIndex().ordinalOf("A");
+
+        assertEquals(Checkout.ERROR, Checkout.checkout(basket(-1L, 1L)));
+        assertEquals(Checkout.ERROR, Checkout.checkout(basket(a, -4L)));
+        assertEquals(Checkout.ERROR, Checkout.checkout(basket(a, 1L << 40)));
+    }
+
+    @Test
+    public void overlongVarintIsAnError() {
+        final ByteBuffer overlong = ByteBuffer.allocate(16);
+        for (int i = 0; i < 11; i++) {
+            overlong.put((byte) 0x80);
+        }
+        overlong.flip();
+
+        assertEquals(Checkout.ERROR, Checkout.checkout(overlong));
+    }
+
+    private static ByteBuffer basket(long ordinal, long count) {
+        final ByteBuffer buffer = ByteBuffer.allocate(64);
+        BasketCodec.putVarLong(buffer, Catalog.current().getVersion());
+        BasketCodec.putVarLong(buffer, 1);
+        BasketCodec.putVarLong(buffer, ordinal);
+        BasketCodec.putVarLong(buffer, count);
+        buffer.flip();
+        return buffer;
+    }
+}
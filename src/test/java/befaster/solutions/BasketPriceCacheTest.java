@@ -0,0 +1,54 @@
+package befaster.solutions;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static befaster.solutions.Checkout.checkout;
+import static org.junit.Assert.assertEquals;
+
+public class BasketPriceCacheTest {
+    private BasketPriceCache cache;
+
+    @Before
+    public void useCache() {
+        cache = new BasketPriceCache(2);
+        Checkout.usePriceCache(cache);
+    }
+
+    @After
+    public void restore() {
+        Checkout.usePriceCache(null);
+        Catalog.install(Catalog.defaults());
+    }
+
+    @Test
+    public void equivalentBasketsShareAnEntry() {
+        final int price = checkout("ABA");
+
+        assertEquals(price, (int) checkout("2A B"));
+        assertEquals(price, (int) checkout("A,A,B"));
+        assertEquals(1, cache.getStats().missCount());
+        assertEquals(2, cache.getStats().hitCount());
+    }
+
+    @Test
+    public void newCatalogIsNeverServedOldPrices() {
+        assertEquals(50, (int) checkout("A"));
+        Catalog.install(Catalog.parse(Lists.newArrayList("price,A,60")));
+
+        assertEquals(60, (int) checkout("A"));
+        assertEquals(0, cache.getStats().hitCount());
+    }
+
+    @Test
+    public void cacheIsBounded() {
+        checkout("A");
+        checkout("B");
+        checkout("C");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getStats().evictionCount());
+    }
+}
@@ -0,0 +1,39 @@
+package befaster.solutions;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static befaster.solutions.Checkout.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BatchCheckoutTest {
+    private static final SkuIndex SKUS = Catalog.defaults().getIndex();
+
+    @Test
+    public void checkoutAllReturnsPricesInInputOrder() {
+        assertEquals(Lists.newArrayList(130, ERROR, 0, 15),
+                checkoutAll(Lists.newArrayList("3A", "*", "", "D")));
+    }
+
+    @Test
+    public void parallelBatchMatchesSingleCheckouts() {
+        final Random random = new Random(3);
+        final CharSequence[] baskets = new CharSequence[10000];
+        final int[] expected = new int[baskets.length];
+        for (int i = 0; i < baskets.length; i++) {
+            final StringBuilder basket = new StringBuilder();
+            for (int item = random.nextInt(15); item > 0; item--) {
+                basket.append(SKUS.skuAt(random.nextInt(SKUS.size())));
+            }
+            baskets[i] = basket;
+            expected[i] = checkout(basket.toString());
+        }
+
+        try (BatchCheckout batch = new BatchCheckout(4, 100)) {
+            assertArrayEquals(expected, batch.checkoutAll(baskets));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package befaster.solutions;
+
+import befaster.util.FileWatcher;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static befaster.solutions.Checkout.checkout;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CatalogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void restoreDefaults() {
+        Catalog.install(Catalog.defaults());
+    }
+
+    @Test
+    public void defaultsAreTheBundledCatalogFile() throws IOException {
+        assertEquals(Catalog.load(Paths.get("config", "catalog.csv")).toRules(), Catalog.defaults().toRules());
+    }
+
+    @Test
+    public void checkoutUsesTheInstalledCatalog() {
+        Catalog.install(Catalog.parse(Lists.newArrayList("price,A,7", "multibuy,A,2,10", "price,b,3")));
+
+        assertEquals(17, (int) checkout("3A"));
+        assertEquals(6, (int) checkout("2b"));
+        assertEquals(Checkout.ERROR, (int) checkout("B"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedRuleIsRejected() {
+        Catalog.parse(Lists.newArrayList("price,A,50", "multibuy,A,3"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroQuantityIsRejected() {
+        Catalog.parse(Lists.newArrayList("price,A,50", "multibuy,A,0,10"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativePriceIsRejected() {
+        Catalog.parse(Lists.newArrayList("price,A,-50"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void groupMemberWithoutPriceIsRejected() {
+        Catalog.parse(Lists.newArrayList("price,A,50", "anyof,AB,2,10"));
+    }
+
+    @Test
+    public void changedFileIsReloaded() throws Exception {
+        final Path file = folder.getRoot().toPath().resolve("catalog.csv");
+        Files.write(file, Lists.newArrayList("price,A,50"), StandardCharsets.UTF_8);
+        final long loaded;
+
+        final FileWatcher watcher = Catalog.watch(file);
+        try {
+            loaded = Catalog.current().getVersion();
+            Files.write(file, Lists.newArrayList("price,A,60"), StandardCharsets.UTF_8);
+            final long deadline = System.currentTimeMillis() + 10_000;
+            while (checkout("A") != 60 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        } finally {
+            watcher.close();
+        }
+
+        assertTrue(Catalog.current().getVersion() > loaded);
+        assertEquals(60, (int) checkout("A"));
+    }
+}
@@ -2,6 +2,11 @@ package befaster.solutions;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 
 import static befaster.solutions.Checkout.*;
 import static org.junit.Assert.assertEquals;
@@ -9,6 +14,20 @@ import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 public class CheckoutTest {
+    private static final int FIRST_PROD_SINGLE_COST = 50;
+    private static final int SECOND_PROD_SINGLE_COST = 30;
+    private static final int THIRD_PROD_SINGLE_COST = 20;
+    private static final int FOURTH_PROD_SINGLE_COST = 15;
+    private static final int FIFTH_PROD_SINGLE_COST = 40;
+    private static final int SIXTH_PROD_SINGLE_COST = 10;
+
+    private static final int OFFER_A3_COST = 130;
+    private static final int OFFER_A5_COST = 200;
+    private static final int OFFER_B2_COST = 45;
+
+    private static int unitPrice(String sku) {
+        return Catalog.defaults().getPrices().get(sku);
+    }
 
     @Test
     public void checkoutBadDataReturnError() throws Exception{
@@ -124,5 +143,63 @@ public class CheckoutTest {
         assertEquals(FIRST_PROD_SINGLE_COST + SECOND_PROD_SINGLE_COST + THIRD_PROD_SINGLE_COST, checkout);
     }
 
+    @Test
+    public void checkoutAnyThreeOfGroupReturnsGroupPrice() throws Exception{
+        final int checkout = checkout("STX");
+        assertEquals(45, checkout);
+    }
+
+    @Test
+    public void checkoutGroupBundlesMostExpensiveItemsFirst() throws Exception{
+        final int checkout = checkout("STXYZ");
+        assertEquals(45 + unitPrice("T") + unitPrice("Y"), checkout);
+    }
+
+    @Test
+    public void checkoutGroupSkipsBundlesThatCostNoMoreThanTheItems() throws Exception{
+        assertEquals(30, (int) checkout("YYY"));
+        assertEquals(40, (int) checkout("TYY"));
+        assertEquals(40, (int) checkout("YYYY"));
+        assertEquals(45 + 40, (int) checkout("XXXYYYY"));
+    }
 
+    @Test
+    public void checkoutGroupAppliesAllBundlesAtOnce() throws Exception{
+        final int checkout = checkout("7X");
+        assertEquals(2 * 45 + unitPrice("X"), checkout);
+    }
+
+
+    @Test
+    public void checkoutStreamedMatchesCheckoutOfString() throws Exception{
+        for (String skus : new String[]{"", "*", "A", "A B", "3A,2B", "AAAAAEEBFFF", "2A2B C", "STXYZ", "3", "A3"}) {
+            assertEquals(skus, checkout(skus), checkout(new StringReader(skus)));
+            assertEquals(skus, checkout(skus), checkout(Channels.newChannel(
+                    new ByteArrayInputStream(skus.getBytes(StandardCharsets.US_ASCII)))));
+        }
+    }
+
+    @Test
+    public void checkoutStreamedHandlesBasketsLargerThanTheBuffer() throws Exception{
+        final int repeats = 1_000_000;
+        final Reader skus = new Reader() {
+            private long position = 0;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                if (position == 3L * repeats) return -1;
+                final int n = (int) Math.min(length, 3L * repeats - position);
+                for (int i = 0; i < n; i++) {
+                    buffer[offset + i] = "2A,".charAt((int) (position++ % 3));
+                }
+                return n;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        assertEquals(checkout(2 * repeats + "A"), checkout(skus));
+    }
 }
@@ -0,0 +1,47 @@
+package befaster.solutions;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static befaster.solutions.Checkout.checkout;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.isEmptyString;
+import static org.hamcrest.Matchers.not;
+
+public class CheckoutTracerTest {
+
+    @After
+    public void uninstall() {
+        CheckoutTracer.uninstall();
+    }
+
+    @Test
+    public void tracesPricedBasketsAndErrors() {
+        final StringWriter out = new StringWriter();
+        final CheckoutTracer tracer = new CheckoutTracer(out, CheckoutTracer.Level.BASKET, 1.0, 16);
+        CheckoutTracer.install(tracer);
+
+        checkout("3A");
+        checkout("A*");
+        tracer.close();
+
+        assertThat(out.toString(), containsString("level=BASKET skus=\"3A\" price=130"));
+        assertThat(out.toString(), containsString("level=ERROR skus=\"A*\" position=1"));
+        assertThat(out.toString(), not(containsString("level=DETAIL")));
+    }
+
+    @Test
+    public void zeroSampleRateTracesNothing() {
+        final StringWriter out = new StringWriter();
+        final CheckoutTracer tracer = new CheckoutTracer(out, CheckoutTracer.Level.DETAIL, 0.0, 16);
+        CheckoutTracer.install(tracer);
+
+        checkout("3A");
+        tracer.close();
+
+        assertThat(out.toString(), isEmptyString());
+    }
+}
@@ -0,0 +1,47 @@
+package befaster.solutions;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ColumnarPricerTest {
+
+    @Test
+    public void columnarTotalsMatchTheScalarEngine() {
+        final Catalog catalog = Catalog.defaults();
+        final int skus = catalog.getIndex().size();
+        final int baskets = 5000;
+        final int[][] columns = new int[skus][baskets];
+        final Random random = new Random(5);
+        for (int basket = 0; basket < baskets; basket++) {
+            for (int item = random.nextInt(30); item > 0; item--) {
+                columns[random.nextInt(skus)][basket] += 1 + random.nextInt(4);
+            }
+        }
+
+        final long[] totals = ColumnarPricer.of(catalog).price(columns, baskets);
+
+        final int[] counts = new int[skus];
+        for (int basket = 0; basket < baskets; basket++) {
+            for (int sku = 0; sku < skus; sku++) {
+                counts[sku] = columns[sku][basket];
+            }
+            assertEquals("basket " + basket, catalog.getEngine().price(counts), totals[basket]);
+        }
+    }
+
+    @Test
+    public void missingColumnsCountAsZero() {
+        final Catalog catalog = Catalog.defaults();
+        final int[][] columns = new int[catalog.getIndex().size()][];
+        columns[catalog.getIndex().ordinalOf("A")] = new int[]{3, 0, 5};
+
+        final long[] totals = ColumnarPricer.of(catalog).price(columns, 3);
+
+        assertEquals(130, totals[0]);
+        assertEquals(0, totals[1]);
+        assertEquals(200, totals[2]);
+    }
+}
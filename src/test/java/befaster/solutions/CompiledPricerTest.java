@@ -0,0 +1,95 @@
+package befaster.solutions;
+
+import befaster.solutions.Checkout.Basket;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class CompiledPricerTest {
+
+    @After
+    public void restoreDefaults() {
+        Catalog.install(Catalog.defaults());
+    }
+
+    @Test
+    public void compiledPricesMatchTheInterpretedOffers() {
+        assertMatchesInterpretedOffers(Catalog.defaults(), 5);
+    }
+
+    @Test
+    public void catalogWrittenInTheOfferLanguagePricesLikeTheDefaults() {
+        final Catalog catalog = Catalog.parse(Lists.newArrayList(
+                "price,A,50", "price,B,30", "price,E,40", "price,S,20", "price,T,20", "price,X,17", "price,Y,20", "price,Z,21",
+                "offer, 3A for 130",
+                "offer, 5A for 200",
+                "offer, 2B for 45",
+                "offer, 2E get one B free",
+                "offer, any 3 of STXYZ for 45"));
+
+        assertEquals(130 + 45, catalog.getPricer().price(counts(catalog, "AAABB")));
+        assertEquals(80, catalog.getPricer().price(counts(catalog, "EEB")));
+        assertEquals(45 + 17, catalog.getPricer().price(counts(catalog, "STXZ")));
+        assertMatchesInterpretedOffers(catalog, 7);
+    }
+
+    @Test
+    public void selfReferencingFreeOfferMatchesTheRuleSyntax() {
+        final Catalog dsl = Catalog.parse(Lists.newArrayList("price,U,40", "price,F,10", "offer,3U get one U free", "offer,2F get one F free"));
+        final Catalog rules = Catalog.parse(Lists.newArrayList("price,U,40", "price,F,10", "free,U,4,U", "free,F,3,F"));
+
+        assertEquals(120, dsl.getPricer().price(counts(dsl, "UUU")));
+        assertEquals(120, dsl.getPricer().price(counts(dsl, "UUUU")));
+        for (String basket : new String[]{"UUUUUUUU", "FFF", "FFFFFF", "UUUUFFFF"}) {
+            assertEquals(basket, rules.getPricer().price(counts(rules, basket)), dsl.getPricer().price(counts(dsl, basket)));
+        }
+        assertMatchesInterpretedOffers(dsl, 9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void offerWithoutAPriceIsRejected() {
+        Catalog.parse(Lists.newArrayList("price,A,50", "offer,2A get one B free"));
+    }
+
+    @Test
+    public void staysCorrectForCatalogsThatAreNotCurrent() {
+        final Catalog other = Catalog.parse(Lists.newArrayList("price,A,7", "offer,2A for 10"));
+        Catalog.install(other);
+
+        assertEquals(130, Catalog.defaults().getPricer().price(counts(Catalog.defaults(), "AAA")));
+        assertEquals(17, other.getPricer().price(counts(other, "AAA")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownOfferWording() {
+        OfferRules.parse("3A cost 130", Catalog.defaults().getPrices());
+    }
+
+    private static void assertMatchesInterpretedOffers(Catalog catalog, long seed) {
+        final Catalog previous = Catalog.current();
+        Catalog.install(catalog);
+        try {
+            final String skus = String.join("", catalog.getPrices().keySet());
+            final Random random = new Random(seed);
+            for (int i = 0; i < 2000; i++) {
+                final StringBuilder basket = new StringBuilder();
+                for (int item = random.nextInt(30); item > 0; item--) {
+                    basket.append(skus.charAt(random.nextInt(skus.length())));
+                }
+                final Basket interpreted = new Basket(catalog.getIndex()).fill(basket);
+                assertEquals(basket.toString(), Checkout.calculateBasketPrice(interpreted, catalog),
+                        catalog.getPricer().price(counts(catalog, basket)));
+            }
+        } finally {
+            Catalog.install(previous);
+        }
+    }
+
+    private static int[] counts(Catalog catalog, CharSequence skus) {
+        return new Basket(catalog.getIndex()).fill(skus).skus;
+    }
+}
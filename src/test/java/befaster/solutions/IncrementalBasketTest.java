@@ -0,0 +1,60 @@
+package befaster.solutions;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class IncrementalBasketTest {
+    private final Catalog catalog = Catalog.defaults();
+
+    @Test
+    public void totalFollowsEveryScanAndRemoval() {
+        final SkuIndex index = catalog.getIndex();
+        final IncrementalBasket basket = new IncrementalBasket(catalog);
+        final int[] counts = new int[index.size()];
+        final Random random = new Random(11);
+        for (int i = 0; i < 5000; i++) {
+            final int ordinal = random.nextInt(index.size());
+            final String sku = index.skuAt(ordinal);
+            if (random.nextInt(3) == 0 && counts[ordinal] > 0) {
+                final int quantity = 1 + random.nextInt(counts[ordinal]);
+                counts[ordinal] -= quantity;
+                basket.remove(sku, quantity);
+            } else {
+                final int quantity = 1 + random.nextInt(4);
+                counts[ordinal] += quantity;
+                basket.add(sku, quantity);
+            }
+            assertEquals(catalog.getEngine().price(counts), basket.currentTotal());
+        }
+    }
+
+    @Test
+    public void freeItemTriggerRepricesItsTarget() {
+        final IncrementalBasket basket = new IncrementalBasket(catalog);
+        basket.add("B", 1);
+        assertEquals(70, basket.add("E", 1));
+        assertEquals(80, basket.add("E", 1));
+        assertEquals(70, basket.remove("E", 1));
+    }
+
+    @Test
+    public void restoreUndoesLaterChanges() {
+        final IncrementalBasket basket = new IncrementalBasket(catalog);
+        basket.add("S", 2);
+        final IncrementalBasket.Snapshot beforeScan = basket.snapshot();
+        assertEquals(45, basket.add("Z", 1));
+
+        basket.restore(beforeScan);
+
+        assertEquals(60, basket.currentTotal());
+        assertEquals(0, basket.count("Z"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void removingMoreThanScannedIsRejected() {
+        new IncrementalBasket(catalog).remove("A", 1);
+    }
+}
@@ -0,0 +1,86 @@
+package befaster.solutions;
+
+import befaster.solutions.Checkout.Basket;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OfferIndexTest {
+
+    /**
+     * Every printable ASCII SKU (83 of them, so two bitset words), with multi-buys, free items
+     * that cross the 64-bit boundary and a group made of the last few SKUs.
+     */
+    private static Catalog wideCatalog() {
+        final List<String> skus = wideSkus();
+        final List<String> rules = new ArrayList<>();
+        for (int i = 0; i < skus.size(); i++) {
+            rules.add("price," + skus.get(i) + "," + (10 + i));
+        }
+        for (int i = 0; i < skus.size(); i += 3) {
+            rules.add("multibuy," + skus.get(i) + ",3," + (25 + i));
+        }
+        for (int i = 0; i < 20; i += 2) {
+            rules.add("free," + skus.get(i) + ",2," + skus.get(i + 60));
+        }
+        final int n = skus.size();
+        rules.add("anyof," + skus.get(n - 1) + skus.get(n - 2) + skus.get(n - 4) + ",3,45");
+        return Catalog.parse(rules);
+    }
+
+    private static List<String> wideSkus() {
+        final List<String> skus = new ArrayList<>();
+        for (char c = '!'; c <= '~'; c++) {
+            if (c != ',' && (c < '0' || c > '9')) skus.add(String.valueOf(c));
+        }
+        return skus;
+    }
+
+    @Test
+    public void interpretedPricingAgreesWithEngineOnWideCatalog() {
+        final Catalog catalog = wideCatalog();
+        final SkuIndex index = catalog.getIndex();
+        assertTrue(index.size() > 64);
+        final Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            final Basket basket = new Basket(index);
+            for (int item = random.nextInt(40); item > 0; item--) {
+                basket.skus[random.nextInt(index.size())] += 1 + random.nextInt(3);
+            }
+            final int expected = catalog.getEngine().price(basket.skus.clone());
+            assertEquals(expected, Checkout.calculateBasketPrice(basket, catalog));
+        }
+    }
+
+    @Test
+    public void freeItemOfferIsSkippedWhenItsTargetIsAbsent() {
+        final Catalog catalog = wideCatalog();
+        final SkuIndex index = catalog.getIndex();
+        final List<String> skus = wideSkus();
+        int rule = 0;
+        while (index.ordinalOf(skus.get(rule + 60)) < 64) rule += 2;
+        final String trigger = skus.get(rule);
+        final String target = skus.get(rule + 60);
+
+        assertEquals(0, Checkout.findMatchingOffers(new Basket(index).fill("2" + trigger), catalog.getOfferIndex()).size());
+        assertEquals(1, Checkout.findMatchingOffers(new Basket(index).fill("2" + trigger + target), catalog.getOfferIndex()).size());
+    }
+
+    @Test
+    public void nextSetBitWalksAcrossWords() {
+        final long[] bits = new long[3];
+        OfferIndex.set(bits, 5);
+        OfferIndex.set(bits, 64);
+        OfferIndex.set(bits, 130);
+
+        assertEquals(5, OfferIndex.nextSetBit(bits, 0));
+        assertEquals(64, OfferIndex.nextSetBit(bits, 6));
+        assertEquals(130, OfferIndex.nextSetBit(bits, 65));
+        assertEquals(-1, OfferIndex.nextSetBit(bits, 131));
+    }
+}
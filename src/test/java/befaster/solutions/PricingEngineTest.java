@@ -0,0 +1,66 @@
+package befaster.solutions;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static befaster.solutions.Checkout.*;
+import static org.junit.Assert.assertEquals;
+
+public class PricingEngineTest {
+    private static final SkuIndex SKUS = Catalog.defaults().getIndex();
+
+    private static String randomBasket(Random random, int maxItems) {
+        final StringBuilder basket = new StringBuilder();
+        final int items = random.nextInt(maxItems);
+        for (int i = 0; i < items; i++) {
+            basket.append(SKUS.skuAt(random.nextInt(SKUS.size())));
+        }
+        return basket.toString();
+    }
+
+    @Test
+    public void engineAgreesWithReferenceOnRandomBaskets() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            final String basket = randomBasket(random, 30);
+            assertEquals(basket, referenceCheckout(basket), checkout(basket));
+        }
+    }
+
+    @Test
+    public void engineAgreesWithReferenceOnLinkedOffers() {
+        for (String basket : new String[]{"EEB", "EEEEBBB", "FFFFFF", "NNNM", "RRRQQQ", "UUUUUUUU", "HHHHHHHHHHHHHHH", "VVVVV"}) {
+            assertEquals(basket, referenceCheckout(basket), checkout(basket));
+        }
+    }
+
+    @Test
+    public void engineSkipsGroupBundlesThatCostNoMoreThanTheItems() {
+        for (String basket : new String[]{"YYY", "TYY", "YYYY", "XXXYYYY", "ZTTYY"}) {
+            assertEquals(basket, referenceCheckout(basket), checkout(basket));
+        }
+        assertEquals(30, (int) checkout("YYY"));
+        assertEquals(40, (int) checkout("TYY"));
+        assertEquals(40, (int) checkout("YYYY"));
+    }
+
+    @Test
+    public void parallelMatchingAgreesWithSequential() {
+        final Random random = new Random(7);
+        try {
+            useParallelMatching(2, 10);
+            for (int i = 0; i < 200; i++) {
+                final String basket = randomBasket(random, 60);
+                assertEquals(basket, checkout(basket), referenceCheckout(basket));
+            }
+        } finally {
+            useSequentialMatching();
+        }
+    }
+
+    @Test
+    public void hugeBasketIsPricedArithmetically() {
+        assertEquals(20000 * 200, (int) checkout("100000A"));
+    }
+}
@@ -0,0 +1,200 @@
+package befaster.solutions;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PricingNodeTest {
+    private final List<PricingNode> nodes = new ArrayList<>();
+
+    private List<PricingNode> cluster(int size, Catalog catalog) throws IOException {
+        final List<InetSocketAddress> members = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            final PricingNode node = PricingNode.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), catalog, 10_000);
+            nodes.add(node);
+            members.add(node.getAddress());
+        }
+        for (PricingNode node : nodes) {
+            node.join(members);
+        }
+        return nodes;
+    }
+
+    private static String randomBasket(Random random, SkuIndex index) {
+        final StringBuilder basket = new StringBuilder();
+        for (int item = random.nextInt(12); item > 0; item--) {
+            basket.append(index.skuAt(random.nextInt(index.size())));
+        }
+        return basket.toString();
+    }
+
+    @After
+    public void stopNodes() throws IOException {
+        for (PricingNode node : nodes) {
+            node.close();
+        }
+    }
+
+    @Test
+    public void everyNodePricesLikeTheEngineAndOnlyOwnersCache() throws IOException {
+        final Catalog catalog = Catalog.defaults();
+        final List<PricingNode> cluster = cluster(3, catalog);
+        final Random random = new Random(9);
+        for (int i = 0; i < 300; i++) {
+            final String basket = randomBasket(random, catalog.getIndex());
+            final int[] counts = new int[catalog.getIndex().size()];
+            SkuParser.parse(basket, catalog.getIndex(), counts);
+            final PricingNode node = cluster.get(random.nextInt(cluster.size()));
+
+            assertEquals(basket, catalog.getEngine().price(counts), node.price(basket));
+        }
+
+        long cached = 0;
+        long forwarded = 0;
+        for (PricingNode node : cluster) {
+            assertTrue("every node owns part of the key space", node.getCache().size() > 0);
+            cached += node.getCache().size();
+            forwarded += node.getForwarded();
+        }
+        assertTrue(forwarded > 0);
+        assertTrue("each basket is cached once, on its owner", cached <= 300);
+    }
+
+    @Test
+    public void publishedCatalogReachesEveryNode() throws IOException {
+        final List<PricingNode> cluster = cluster(3, Catalog.defaults());
+        final Catalog next = Catalog.parse(Lists.newArrayList("price,A,7", "multibuy,A,2,10"));
+
+        assertEquals(0, cluster.get(0).publish(next).size());
+
+        final long published = cluster.get(0).getCatalog().getVersion();
+        for (PricingNode node : cluster) {
+            assertEquals(published, node.getCatalog().getVersion());
+            assertEquals(17, node.price("3A"));
+        }
+    }
+
+    @Test
+    public void laterPublishWinsOnEveryNodeWhoeverPublishesIt() throws IOException {
+        final List<PricingNode> cluster = cluster(2, Catalog.defaults());
+        cluster.get(1).publish(Catalog.parse(Lists.newArrayList("price,A,7")));
+        cluster.get(0).publish(Catalog.parse(Lists.newArrayList("price,A,9")));
+
+        assertEquals(cluster.get(0).getCatalog().getVersion(), cluster.get(1).getCatalog().getVersion());
+        for (PricingNode node : cluster) {
+            assertEquals(27, node.price("3A"));
+        }
+    }
+
+    @Test
+    public void nodePositionDoesNotDependOnHowHostsAreSpelled() throws IOException {
+        final InetAddress localhost = InetAddress.getByName("localhost");
+        final InetAddress numeric = InetAddress.getByAddress(localhost.getAddress());
+        final List<InetSocketAddress> members = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final PricingNode node = PricingNode.listen(new InetSocketAddress(localhost, 0), Catalog.defaults(), 10_000);
+            nodes.add(node);
+            members.add(new InetSocketAddress(numeric, node.getAddress().getPort()));
+        }
+        for (PricingNode node : nodes) {
+            node.join(members);
+        }
+        nodes.get(1).publish(Catalog.parse(Lists.newArrayList("price,A,7")));
+        nodes.get(0).publish(Catalog.parse(Lists.newArrayList("price,A,9")));
+
+        final long version = nodes.get(0).getCatalog().getVersion();
+        assertTrue(version > 0);
+        for (PricingNode node : nodes) {
+            assertEquals(version, node.getCatalog().getVersion());
+            assertEquals(27, node.price("3A"));
+        }
+    }
+
+    @Test
+    public void memberUnreachableAtPublishGetsTheCatalogOnceItIsBack() throws Exception {
+        final PricingNode publisher = PricingNode.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), Catalog.defaults(), 10_000);
+        nodes.add(publisher);
+        final PricingNode down = PricingNode.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), Catalog.defaults(), 10_000);
+        final InetSocketAddress downAddress = down.getAddress();
+        down.close();
+        final List<InetSocketAddress> members = Lists.newArrayList(publisher.getAddress(), downAddress);
+        publisher.join(members);
+
+        assertEquals(Lists.newArrayList(downAddress), publisher.publish(Catalog.parse(Lists.newArrayList("price,A,7"))));
+
+        final PricingNode back = PricingNode.listen(downAddress, Catalog.defaults(), 10_000);
+        nodes.add(back);
+        back.join(members);
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (back.getCatalog().getVersion() != publisher.getCatalog().getVersion() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(publisher.getCatalog().getVersion(), back.getCatalog().getVersion());
+        assertEquals(21, back.price("3A"));
+    }
+
+    @Test
+    public void ownerMissingTheCallersNewSkusIsBroughtUpToDate() throws IOException {
+        final List<PricingNode> cluster = cluster(2, Catalog.defaults());
+        final PricingNode ahead = cluster.get(0);
+        final PricingNode behind = cluster.get(1);
+        final List<String> rules = new ArrayList<>(Catalog.defaults().toRules());
+        rules.add("price,a,4");
+        ahead.join(Lists.newArrayList(ahead.getAddress()));
+        ahead.publish(Catalog.parse(rules));
+        ahead.join(Lists.newArrayList(ahead.getAddress(), behind.getAddress()));
+        final Catalog next = ahead.getCatalog();
+
+        final int[] counts = new int[next.getIndex().size()];
+        int quantity = 0;
+        do {
+            counts[next.getIndex().ordinalOf("a")] = ++quantity;
+        } while (!ahead.ownerOf(next, counts).equals(behind.getAddress()));
+
+        assertEquals(quantity * 4, ahead.price(quantity + "a"));
+        assertEquals(next.getVersion(), behind.getCatalog().getVersion());
+    }
+
+    @Test
+    public void staleCallerCatchesUpFromTheOwnerBeforePricing() throws IOException {
+        final List<PricingNode> cluster = cluster(2, Catalog.defaults());
+        final PricingNode ahead = cluster.get(0);
+        final PricingNode behind = cluster.get(1);
+        final Catalog next = Catalog.parse(Lists.newArrayList("price,A,7", "price,B,3"));
+        ahead.join(Lists.newArrayList(ahead.getAddress()));
+        ahead.publish(next);
+        ahead.join(Lists.newArrayList(ahead.getAddress(), behind.getAddress()));
+
+        final int[] counts = new int[next.getIndex().size()];
+        int quantity = 0;
+        do {
+            counts[next.getIndex().ordinalOf("A")] = ++quantity;
+        } while (!ahead.ownerOf(next, counts).equals(ahead.getAddress()));
+
+        assertEquals(quantity * 7, behind.price(quantity + "A"));
+        assertEquals(ahead.getCatalog().getVersion(), behind.getCatalog().getVersion());
+    }
+
+    @Test
+    public void catalogRulesRoundTrip() {
+        final Catalog defaults = Catalog.defaults();
+        final Catalog copy = Catalog.replica(defaults.getVersion(), defaults.toRules());
+
+        assertEquals(defaults.toRules(), copy.toRules());
+        for (String basket : new String[]{"3A,2B", "EEB", "NNNM", "STXYZ", "5H,10H"}) {
+            final int[] counts = new int[defaults.getIndex().size()];
+            SkuParser.parse(basket, defaults.getIndex(), counts);
+            assertEquals(basket, defaults.getEngine().price(counts), copy.getEngine().price(counts));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package befaster.solutions;
+
+import befaster.solutions.Checkout.Offer;
+import befaster.solutions.Checkout.ProductMatch;
+import befaster.solutions.Checkout.ReducedPrice;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static befaster.solutions.Checkout.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PricingSolverTest {
+    private static final SkuIndex SKUS = Catalog.defaults().getIndex();
+    private static final PricingEngine ENGINE = Catalog.defaults().getEngine();
+
+    @Test
+    public void optimalIsNeverMoreExpensiveThanGreedy() {
+        final Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            final StringBuilder basket = new StringBuilder();
+            for (int item = random.nextInt(20); item > 0; item--) {
+                basket.append(SKUS.skuAt(random.nextInt(SKUS.size())));
+            }
+            final String skus = basket.toString();
+            assertTrue(skus, checkout(skus, PricingMode.OPTIMAL) <= checkout(skus));
+        }
+    }
+
+    @Test
+    public void optimalFindsCombinationGreedyMisses() {
+        final Map<String, Integer> prices = ImmutableMap.of("A", 50);
+        final PricingEngine engine = PricingEngine.compile(SkuIndex.of(prices.keySet()), prices, Lists.newArrayList(
+                Offer.of(ProductMatch.of("A", 3), ReducedPrice.of("A", 3, 100)),
+                Offer.of(ProductMatch.of("A", 4), ReducedPrice.of("A", 4, 120))));
+        final int[] sixA = {6};
+
+        assertEquals(220, engine.price(sixA));
+        assertEquals(200, PricingSolver.compile(engine).price(sixA));
+    }
+
+    @Test
+    public void groupHeavyBasketIsSolvedExactlyWithinBudget() {
+        final String skus = "SSSTTTXXXYYYZZZSTXYZSTXYZ";
+        final PricingSolver solver = PricingSolver.compile(ENGINE, PricingSolver.DEFAULT_MAX_STEPS, Long.MAX_VALUE);
+        final int[] counts = new int[SKUS.size()];
+        for (char sku : skus.toCharArray()) {
+            counts[SKUS.ordinalOf(String.valueOf(sku))]++;
+        }
+
+        assertEquals(355, solver.price(counts));
+        assertEquals(355, (int) checkout(skus, PricingMode.OPTIMAL));
+    }
+
+    @Test
+    public void exhaustedBudgetFallsBackToGreedy() {
+        final PricingSolver solver = PricingSolver.compile(ENGINE, 1, PricingSolver.DEFAULT_TIME_BUDGET_NANOS);
+        final int[] counts = new int[SKUS.size()];
+        counts[SKUS.ordinalOf("A")] = 100000;
+
+        assertEquals(ENGINE.price(counts), solver.price(counts));
+    }
+}
@@ -0,0 +1,74 @@
+package befaster.solutions;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SkuParserTest {
+    private static final SkuIndex SKUS = Catalog.defaults().getIndex();
+
+    private static int[] parse(String skus) {
+        final int[] counts = new int[SKUS.size()];
+        SkuParser.parse(skus, SKUS, counts);
+        return counts;
+    }
+
+    private static int count(int[] counts, String sku) {
+        return counts[SKUS.ordinalOf(sku)];
+    }
+
+    private static long failingPosition(String skus) {
+        try {
+            parse(skus);
+        } catch (InvalidSkuException e) {
+            return e.getPosition();
+        }
+        fail("Expected " + skus + " to be rejected");
+        return -1;
+    }
+
+    @Test
+    public void parseCountsRepeatedLetters() {
+        final int[] counts = parse("ABA");
+        assertEquals(2, count(counts, "A"));
+        assertEquals(1, count(counts, "B"));
+    }
+
+    @Test
+    public void parseSeparatorsAndQuantities() {
+        final int[] counts = parse("1000A,2B C");
+        assertEquals(1000, count(counts, "A"));
+        assertEquals(2, count(counts, "B"));
+        assertEquals(1, count(counts, "C"));
+    }
+
+    @Test
+    public void parseQuantityRepeatsTheWholeToken() {
+        final int[] counts = parse("2AB");
+        assertEquals(2, count(counts, "A"));
+        assertEquals(2, count(counts, "B"));
+    }
+
+    @Test
+    public void parseSkipsEmptyTokens() {
+        final int[] counts = parse("A, B");
+        assertEquals(1, count(counts, "A"));
+        assertEquals(1, count(counts, "B"));
+    }
+
+    @Test
+    public void parseReportsPositionOfUnknownSku() {
+        assertEquals(3, failingPosition("AB,*"));
+    }
+
+    @Test
+    public void parseReportsPositionOfMisplacedQuantity() {
+        assertEquals(1, failingPosition("A2B"));
+    }
+
+    @Test
+    public void parseReportsQuantityWithoutSku() {
+        assertEquals(3, failingPosition("A 3"));
+    }
+}